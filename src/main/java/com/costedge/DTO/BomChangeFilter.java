@@ -0,0 +1,22 @@
+package com.costedge.model.DTO;
+
+import com.costedge.model.BomChangeStatus;
+import com.costedge.model.BomChangeType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Criteria for the combined BOM change filter; null fields are not filtered on.
+ * Dates and impacts are inclusive bounds.
+ */
+public record BomChangeFilter(String model,
+                              String supplier,
+                              BomChangeStatus status,
+                              BomChangeType changeType,
+                              String department,
+                              LocalDate startDate,
+                              LocalDate endDate,
+                              BigDecimal minImpact,
+                              BigDecimal maxImpact) {
+}
@@ -0,0 +1,35 @@
+package com.costedge.model.DTO;
+
+import com.costedge.model.BomChange;
+import com.costedge.model.BomChangeStatus;
+import com.costedge.model.BomChangeType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A BOM change as shown in list and grid views: every column except remarks and the document link,
+ * which only the detail endpoints return. Repository queries select it with a constructor
+ * expression, so the left-out columns are never read and no entity is loaded.
+ */
+public record BomChangeListItem(Long id,
+                                String model,
+                                String partName,
+                                String partNumber,
+                                BigDecimal oldCost,
+                                BigDecimal newCost,
+                                BigDecimal impact,
+                                String supplier,
+                                LocalDate effectiveDate,
+                                BomChangeType changeType,
+                                BomChangeStatus status,
+                                String department,
+                                Integer quantity) {
+
+    // For results that still come back as entities (native search)
+    public static BomChangeListItem of(BomChange b) {
+        return new BomChangeListItem(b.getId(), b.getModel(), b.getPartName(), b.getPartNumber(),
+                b.getOldCost(), b.getNewCost(), b.getImpact(), b.getSupplier(), b.getEffectiveDate(),
+                b.getChangeType(), b.getStatus(), b.getDepartment(), b.getQuantity());
+    }
+}
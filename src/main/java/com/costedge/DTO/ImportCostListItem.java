@@ -0,0 +1,20 @@
+package com.costedge.model.DTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * An import cost record as shown in list views, without the document link and audit timestamps.
+ * Selected with a constructor expression; the full record comes from the detail endpoints.
+ */
+public record ImportCostListItem(Long id,
+                                 String shipmentId,
+                                 LocalDate date,
+                                 String supplier,
+                                 String model,
+                                 String partName,
+                                 Integer quantity,
+                                 BigDecimal freight,
+                                 BigDecimal duty,
+                                 BigDecimal insurance) {
+}
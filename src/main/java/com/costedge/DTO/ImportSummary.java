@@ -0,0 +1,108 @@
+package com.costedge.model.DTO;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Row counters and errors for one import. Safe to update from import threads
+ * while the progress endpoint reads it.
+ */
+public class ImportSummary {
+
+    // Only the first errors are kept so a badly broken file cannot blow up the response
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsSaved = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final AtomicLong rowsInserted = new AtomicLong();
+    private final AtomicLong rowsUpdated = new AtomicLong();
+    private final AtomicLong rowsUnchanged = new AtomicLong();
+    private final List<RowError> errors = new CopyOnWriteArrayList<>();
+    private final Map<String, LongAdder> stageNanos = new ConcurrentHashMap<>();
+
+    // Rebuilds the summary of an earlier import, e.g. one answered from the upload history
+    public static ImportSummary restore(long rowsRead, long rowsSaved, long rowsFailed, long rowsInserted,
+                                        long rowsUpdated, long rowsUnchanged, List<RowError> errors) {
+        ImportSummary summary = new ImportSummary();
+        summary.rowsRead.set(rowsRead);
+        summary.rowsSaved.set(rowsSaved);
+        summary.rowsFailed.set(rowsFailed);
+        summary.rowsInserted.set(rowsInserted);
+        summary.rowsUpdated.set(rowsUpdated);
+        summary.rowsUnchanged.set(rowsUnchanged);
+        summary.errors.addAll(errors);
+        return summary;
+    }
+
+    public void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    public void rowsSaved(long count) {
+        rowsSaved.addAndGet(count);
+    }
+
+    // Merge imports only: how the saved rows matched existing data
+    public void rowsMerged(long inserted, long updated, long unchanged) {
+        rowsInserted.addAndGet(inserted);
+        rowsUpdated.addAndGet(updated);
+        rowsUnchanged.addAndGet(unchanged);
+    }
+
+    public void rowFailed(int rowNumber, String message) {
+        rowsFailed.incrementAndGet();
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(rowNumber, message));
+        }
+    }
+
+    // About the import as a whole rather than a row (row 0); not a failed row, and kept even past the cap
+    public void importError(String message) {
+        errors.add(new RowError(0, message));
+    }
+
+    public void addStageTime(String stage, long nanos) {
+        stageNanos.computeIfAbsent(stage, key -> new LongAdder()).add(nanos);
+    }
+
+    public long getStageNanos(String stage) {
+        LongAdder nanos = stageNanos.get(stage);
+        return nanos != null ? nanos.sum() : 0;
+    }
+
+    // Time spent per import stage in milliseconds, see ImportPipeline
+    public Map<String, Long> getStageMillis() {
+        Map<String, Long> millis = new TreeMap<>();
+        stageNanos.forEach((stage, nanos) -> millis.put(stage, TimeUnit.NANOSECONDS.toMillis(nanos.sum())));
+        return millis;
+    }
+
+    // Getters
+    public long getRowsRead() { return rowsRead.get(); }
+    public long getRowsSaved() { return rowsSaved.get(); }
+    public long getRowsFailed() { return rowsFailed.get(); }
+    public long getRowsInserted() { return rowsInserted.get(); }
+    public long getRowsUpdated() { return rowsUpdated.get(); }
+    public long getRowsUnchanged() { return rowsUnchanged.get(); }
+    public List<RowError> getErrors() { return errors; }
+
+    public static class RowError {
+        private final int row;
+        private final String message;
+
+        public RowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public int getRow() { return row; }
+        public String getMessage() { return message; }
+    }
+}
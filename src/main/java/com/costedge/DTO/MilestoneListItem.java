@@ -0,0 +1,24 @@
+package com.costedge.model.DTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A project milestone cost as shown in grid views. Leaves out the long text columns (reason,
+ * remarks, rejection reason, document links) and the approval and audit details, which only
+ * GET /api/milestones/{id} returns. Selected with a constructor expression, so they are never read.
+ */
+public record MilestoneListItem(Long id,
+                                Integer projectID,
+                                String projectName,
+                                String milestone,
+                                String milestoneType,
+                                String department,
+                                String category,
+                                BigDecimal planned,
+                                BigDecimal actual,
+                                BigDecimal variance,
+                                String currency,
+                                LocalDate date,
+                                String approvalStatus) {
+}
@@ -0,0 +1,37 @@
+package com.costedge.model.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Planned vs actual milestone totals per project, per department and per category, so portfolio
+ * views can show one line per group instead of downloading every milestone. Amounts are never
+ * added across currencies: a group with milestones in two currencies has a line for each.
+ */
+public record MilestoneRollup(List<Line> projects,
+                              List<Line> departments,
+                              List<Line> categories) {
+
+    /**
+     * One group's totals; only its own grouping fields are set (project id and name, department
+     * or category). Over/under budget counts and unit costs follow ProjectMilestoneCost's
+     * isOverBudget, isUnderBudget and getUnitPlannedCost/getUnitActualCost, summed over the group.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Line(Integer projectID,
+                       String projectName,
+                       String department,
+                       String category,
+                       String currency,
+                       long milestones,
+                       BigDecimal planned,
+                       BigDecimal actual,
+                       BigDecimal variance,
+                       long overBudget,
+                       long underBudget,
+                       BigDecimal unitPlannedCost,
+                       BigDecimal unitActualCost) {
+    }
+}
@@ -2,23 +2,44 @@ package com.costedge.controllers;
 import com.costedge.model.BomChange;
 import com.costedge.model.BomChangeStatus;
 import com.costedge.model.BomChangeType;
-import com.costedge.services.BomChangeService;
+import com.costedge.model.DTO.BomChangeFilter;
+import com.costedge.model.DTO.BomChangeListItem;
+import com.costedge.model.DTO.ImportSummary;
+import com.costedge.services.BomChangePartitionService;
+import com.costedge.services.BomChangeServiceimpl;
+import com.costedge.services.imports.ImportJob;
+import com.costedge.services.imports.ImportJobService;
+import com.costedge.web.DataVersions;
+import com.costedge.web.EntityStreamWriter;
+import com.costedge.web.XlsxStreamWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.IsoFields;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 @RestController
@@ -26,11 +47,49 @@ import java.util.stream.Collectors;
 @CrossOrigin(origins = "*")
 public class BomChangeController {
 
-    private final BomChangeService bomChangeService;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    // 2024-Q1, parsed to the quarter's first day
+    private static final DateTimeFormatter QUARTER_FORMAT = new DateTimeFormatterBuilder()
+            .appendPattern("uuuu-'Q'Q")
+            .parseDefaulting(IsoFields.DAY_OF_QUARTER, 1)
+            .toFormatter();
+
+    private static final List<XlsxStreamWriter.Column<BomChangeListItem>> EXPORT_COLUMNS = List.of(
+            new XlsxStreamWriter.Column<>("ID", BomChangeListItem::id),
+            new XlsxStreamWriter.Column<>("Model", BomChangeListItem::model),
+            new XlsxStreamWriter.Column<>("Part Name", BomChangeListItem::partName),
+            new XlsxStreamWriter.Column<>("Part Number", BomChangeListItem::partNumber),
+            new XlsxStreamWriter.Column<>("Old Cost", BomChangeListItem::oldCost),
+            new XlsxStreamWriter.Column<>("New Cost", BomChangeListItem::newCost),
+            new XlsxStreamWriter.Column<>("Impact", BomChangeListItem::impact),
+            new XlsxStreamWriter.Column<>("Supplier", BomChangeListItem::supplier),
+            new XlsxStreamWriter.Column<>("Effective Date", BomChangeListItem::effectiveDate),
+            new XlsxStreamWriter.Column<>("Change Type", BomChangeListItem::changeType),
+            new XlsxStreamWriter.Column<>("Status", BomChangeListItem::status),
+            new XlsxStreamWriter.Column<>("Department", BomChangeListItem::department),
+            new XlsxStreamWriter.Column<>("Quantity", BomChangeListItem::quantity));
+
+    private final BomChangeServiceimpl bomChangeService;
+    private final BomChangePartitionService partitionService;
+    private final ImportJobService importJobService;
+    private final EntityStreamWriter entityStreamWriter;
+    private final XlsxStreamWriter xlsxStreamWriter;
+    private final DataVersions dataVersions;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public BomChangeController(BomChangeService bomChangeService) {
+    public BomChangeController(BomChangeServiceimpl bomChangeService, BomChangePartitionService partitionService,
+                               ImportJobService importJobService, EntityStreamWriter entityStreamWriter,
+                               XlsxStreamWriter xlsxStreamWriter, DataVersions dataVersions, ObjectMapper objectMapper) {
         this.bomChangeService = bomChangeService;
+        this.partitionService = partitionService;
+        this.importJobService = importJobService;
+        this.entityStreamWriter = entityStreamWriter;
+        this.xlsxStreamWriter = xlsxStreamWriter;
+        this.dataVersions = dataVersions;
+        this.objectMapper = objectMapper;
     }
 
     // Test endpoint for role verification
@@ -40,18 +99,40 @@ public class BomChangeController {
         return "This is a secured BOM changes endpoint for MANAGERS.";
     }
 
+    // Pass size and/or cursor to get one PageResponse page (newest first) instead of the full list;
+    // nextCursor from the response fetches the following page. The same applies to the filter endpoints.
     @GetMapping("/all")
     @PreAuthorize("isAuthenticated()") // Any logged-in user can view
-    public ResponseEntity<List<BomChange>> getAllBomChanges() {
+    public ResponseEntity<?> getAllBomChanges(@RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer size,
+                                              WebRequest request) {
         try {
-            List<BomChange> bomChanges = bomChangeService.getAllBomChanges();
-            return new ResponseEntity<>(bomChanges, HttpStatus.OK);
+            // Unchanged since the client's copy (of this page): 304 before anything is queried
+            return dataVersions.conditionalGet(request, DataVersions.BOM_CHANGES, () -> cursor != null || size != null
+                    ? bomChangeService.getBomChangesPage(cursor, pageSize(size))
+                    : bomChangeService.getAllBomChanges());
+        } catch (IllegalArgumentException e) {
+            return invalidPageRequest(e);
         } catch (Exception e) {
             e.printStackTrace();
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    // Streams every row as NDJSON (default) or, with format=json, as one JSON array.
+    // Memory use stays flat regardless of row count; the first rows are sent while the query is still running.
+    @GetMapping("/stream")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> streamAllBomChanges(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        if ("json".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(entityStreamWriter.jsonArray(bomChangeService::streamAllBomChanges));
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON)
+                .body(entityStreamWriter.ndjson(bomChangeService::streamAllBomChanges));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<BomChange> getBomChangeById(@PathVariable Long id) {
@@ -138,7 +219,15 @@ public class BomChangeController {
 
     @PostMapping("/saveAll")
     @PreAuthorize("hasRole('ADMIN') or hasRole('DATAENTRY')") // Only ADMIN/MANAGER can upload files
-    public ResponseEntity<?> saveAllBomChanges(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> saveAllBomChanges(@RequestParam("file") MultipartFile file,
+                                               @RequestParam(value = "mode", defaultValue = "jpa") String mode,
+                                               @RequestParam(value = "force", defaultValue = "false") boolean force) {
+        if (!List.of("jpa", "copy", "merge").contains(mode.toLowerCase())) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid mode: " + mode + ". Valid modes are: jpa, copy, merge");
+            return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+        }
+
         if (file.isEmpty()) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Please select a file to upload");
@@ -153,21 +242,33 @@ public class BomChangeController {
         }
 
         try {
-            List<BomChange> bomChanges = bomChangeService.processExcelFile(file);
-
-            if (bomChanges.isEmpty()) {
-                Map<String, String> error = new HashMap<>();
-                error.put("error", "No valid data found in the Excel file");
-                return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
-            }
-
-            List<BomChange> savedBomChanges = bomChangeService.saveAllBomChanges(bomChanges);
+            // Parsing and saving run in the background; progress is polled at /api/imports/{jobId}.
+            // mode=copy bulk loads through PostgreSQL COPY instead of JPA inserts,
+            // mode=merge upserts on (part number, model, effective date) and reports inserted/updated/unchanged
+            ImportJobService.ImportTask task = switch (mode.toLowerCase()) {
+                case "copy" -> bomChangeService::copyExcelFile;
+                case "merge" -> bomChangeService::mergeExcelFile;
+                default -> bomChangeService::importExcelFile;
+            };
+            // An identical file imported recently is not imported again unless force=true
+            ImportJob job = importJobService.submit("bom-changes", file, mode.toLowerCase(), force, task);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("message", "Successfully imported " + savedBomChanges.size() + " records from Excel file");
-            response.put("data", savedBomChanges);
+            response.put("jobId", job.getJobId());
+            response.put("status", job.getStatus());
+            response.put("statusUrl", "/api/imports/" + job.getJobId());
 
-            return new ResponseEntity<>(savedBomChanges, HttpStatus.CREATED);
+            if (job.getDuplicateOf() != null) {
+                response.put("message", "This file was already imported; returning the earlier result");
+                response.put("duplicateOf", job.getDuplicateOf());
+                return new ResponseEntity<>(response, HttpStatus.OK);
+            }
+            response.put("message", "Import started for " + fileName);
+            return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+        } catch (RejectedExecutionException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Too many imports in progress, please try again later");
+            return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
         } catch (Exception e) {
             e.printStackTrace();
             Map<String, String> error = new HashMap<>();
@@ -176,6 +277,51 @@ public class BomChangeController {
         }
     }
 
+    // Streaming ingest for ETL clients: the body is read record by record and saved in chunks,
+    // so payload size is not limited by the heap. mode=merge upserts like the Excel merge import.
+    @PostMapping(value = "/ingest", consumes = "application/x-ndjson")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DATAENTRY')")
+    public ResponseEntity<?> ingestNdjson(InputStream body,
+                                          @RequestParam(value = "mode", defaultValue = "jpa") String mode) {
+        return ingest(mode, summary -> bomChangeService.ingestNdjson(body, "merge".equalsIgnoreCase(mode), summary));
+    }
+
+    @PostMapping(value = "/ingest", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('DATAENTRY')")
+    public ResponseEntity<?> ingestCsv(InputStream body,
+                                       @RequestParam(value = "mode", defaultValue = "jpa") String mode) {
+        return ingest(mode, summary -> bomChangeService.ingestCsv(body, "merge".equalsIgnoreCase(mode), summary));
+    }
+
+    private interface IngestTask {
+        void run(ImportSummary summary) throws Exception;
+    }
+
+    private ResponseEntity<?> ingest(String mode, IngestTask task) {
+        if (!List.of("jpa", "merge").contains(mode.toLowerCase())) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid mode: " + mode + ". Valid modes are: jpa, merge");
+            return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+        }
+
+        ImportSummary summary = new ImportSummary();
+        try {
+            task.run(summary);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Saved " + summary.getRowsSaved() + " of " + summary.getRowsRead() + " BOM changes");
+            response.put("summary", summary);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (Exception e) {
+            e.printStackTrace();
+            // Chunks written before the failure stay committed; the summary tells the client where it stopped
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Failed to ingest BOM changes: " + e.getMessage());
+            error.put("summary", summary);
+            return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER')") // Only ADMIN/MANAGER can update
     public ResponseEntity<?> updateBomChange(@PathVariable Long id,
@@ -233,7 +379,9 @@ public class BomChangeController {
 
     @GetMapping("/status/{status}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> getBomChangesByStatus(@PathVariable String status) {
+    public ResponseEntity<?> getBomChangesByStatus(@PathVariable String status,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer size) {
         try {
             BomChangeStatus bomStatus;
             try {
@@ -244,8 +392,14 @@ public class BomChangeController {
                 return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
             }
 
-            List<BomChange> bomChanges = bomChangeService.getBomChangesByStatus(bomStatus);
+            if (cursor != null || size != null) {
+                return new ResponseEntity<>(
+                        bomChangeService.getBomChangesByStatusPage(bomStatus, cursor, pageSize(size)), HttpStatus.OK);
+            }
+            List<BomChangeListItem> bomChanges = bomChangeService.getBomChangesByStatus(bomStatus);
             return new ResponseEntity<>(bomChanges, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return invalidPageRequest(e);
         } catch (Exception e) {
             e.printStackTrace();
             Map<String, String> error = new HashMap<>();
@@ -256,7 +410,9 @@ public class BomChangeController {
 
     @GetMapping("/department/{department}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> getBomChangesByDepartment(@PathVariable String department) {
+    public ResponseEntity<?> getBomChangesByDepartment(@PathVariable String department,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer size) {
         try {
             if (department == null || department.trim().isEmpty()) {
                 Map<String, String> error = new HashMap<>();
@@ -264,8 +420,14 @@ public class BomChangeController {
                 return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
             }
 
-            List<BomChange> bomChanges = bomChangeService.getBomChangesByDepartment(department);
+            if (cursor != null || size != null) {
+                return new ResponseEntity<>(
+                        bomChangeService.getBomChangesByDepartmentPage(department, cursor, pageSize(size)), HttpStatus.OK);
+            }
+            List<BomChangeListItem> bomChanges = bomChangeService.getBomChangesByDepartment(department);
             return new ResponseEntity<>(bomChanges, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return invalidPageRequest(e);
         } catch (Exception e) {
             e.printStackTrace();
             Map<String, String> error = new HashMap<>();
@@ -276,7 +438,9 @@ public class BomChangeController {
 
     @GetMapping("/model/{model}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> getBomChangesByModel(@PathVariable String model) {
+    public ResponseEntity<?> getBomChangesByModel(@PathVariable String model,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer size) {
         try {
             if (model == null || model.trim().isEmpty()) {
                 Map<String, String> error = new HashMap<>();
@@ -284,8 +448,14 @@ public class BomChangeController {
                 return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
             }
 
-            List<BomChange> bomChanges = bomChangeService.getBomChangesByModel(model);
+            if (cursor != null || size != null) {
+                return new ResponseEntity<>(
+                        bomChangeService.getBomChangesByModelPage(model, cursor, pageSize(size)), HttpStatus.OK);
+            }
+            List<BomChangeListItem> bomChanges = bomChangeService.getBomChangesByModel(model);
             return new ResponseEntity<>(bomChanges, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return invalidPageRequest(e);
         } catch (Exception e) {
             e.printStackTrace();
             Map<String, String> error = new HashMap<>();
@@ -296,7 +466,9 @@ public class BomChangeController {
 
     @GetMapping("/supplier/{supplier}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> getBomChangesBySupplier(@PathVariable String supplier) {
+    public ResponseEntity<?> getBomChangesBySupplier(@PathVariable String supplier,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer size) {
         try {
             if (supplier == null || supplier.trim().isEmpty()) {
                 Map<String, String> error = new HashMap<>();
@@ -304,8 +476,14 @@ public class BomChangeController {
                 return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
             }
 
-            List<BomChange> bomChanges = bomChangeService.getBomChangesBySupplier(supplier);
+            if (cursor != null || size != null) {
+                return new ResponseEntity<>(
+                        bomChangeService.getBomChangesBySupplierPage(supplier, cursor, pageSize(size)), HttpStatus.OK);
+            }
+            List<BomChangeListItem> bomChanges = bomChangeService.getBomChangesBySupplier(supplier);
             return new ResponseEntity<>(bomChanges, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return invalidPageRequest(e);
         } catch (Exception e) {
             e.printStackTrace();
             Map<String, String> error = new HashMap<>();
@@ -327,7 +505,7 @@ public class BomChangeController {
                 return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
             }
 
-            List<BomChange> bomChanges = bomChangeService.getBomChangesByChangeType(bomChangeType);
+            List<BomChangeListItem> bomChanges = bomChangeService.getBomChangesByChangeType(bomChangeType);
             return new ResponseEntity<>(bomChanges, HttpStatus.OK);
         } catch (Exception e) {
             e.printStackTrace();
@@ -341,7 +519,9 @@ public class BomChangeController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> getBomChangesByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
         try {
             if (startDate == null || endDate == null) {
                 Map<String, String> error = new HashMap<>();
@@ -355,8 +535,14 @@ public class BomChangeController {
                 return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
             }
 
-            List<BomChange> bomChanges = bomChangeService.getBomChangesByEffectiveDateRange(startDate, endDate);
+            if (cursor != null || size != null) {
+                return new ResponseEntity<>(bomChangeService.getBomChangesByEffectiveDateRangePage(
+                        startDate, endDate, cursor, pageSize(size)), HttpStatus.OK);
+            }
+            List<BomChangeListItem> bomChanges = bomChangeService.getBomChangesByEffectiveDateRange(startDate, endDate);
             return new ResponseEntity<>(bomChanges, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return invalidPageRequest(e);
         } catch (Exception e) {
             e.printStackTrace();
             Map<String, String> error = new HashMap<>();
@@ -365,9 +551,103 @@ public class BomChangeController {
         }
     }
 
+    // One query for any combination of criteria, instead of intersecting single-criterion lists client-side.
+    // Returns an offset page (page from 0) with totals; sort is "field" or "field,asc|desc".
+    @GetMapping("/filter")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> filterBomChanges(
+            @RequestParam(required = false) String model,
+            @RequestParam(required = false) String supplier,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String changeType,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) BigDecimal minImpact,
+            @RequestParam(required = false) BigDecimal maxImpact,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort) {
+        try {
+            BomChangeFilter filter = filterOf(model, supplier, status, changeType, department,
+                    startDate, endDate, minImpact, maxImpact);
+            return new ResponseEntity<>(bomChangeService.filterBomChanges(filter, page, pageSize(size), sort), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return invalidPageRequest(e);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to filter BOM changes: " + e.getMessage());
+            return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Every row matching the /filter criteria, in its sort order, as an .xlsx download. Rows are written
+    // to the response as they are read, so the file can be any size; bad criteria are still a 400.
+    @GetMapping("/export")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> exportBomChanges(
+            @RequestParam(required = false) String model,
+            @RequestParam(required = false) String supplier,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String changeType,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) BigDecimal minImpact,
+            @RequestParam(required = false) BigDecimal maxImpact,
+            @RequestParam(required = false) String sort) {
+        try {
+            BomChangeFilter filter = filterOf(model, supplier, status, changeType, department,
+                    startDate, endDate, minImpact, maxImpact);
+            return xlsxStreamWriter.download("bom-changes", "BOM Changes", EXPORT_COLUMNS,
+                    bomChangeService.exportBomChanges(filter, sort));
+        } catch (IllegalArgumentException e) {
+            // A streaming endpoint can only return a streamed body, so the usual error map is written out here
+            Map<String, String> error = Map.of("error", e.getMessage());
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writeValue(out, error));
+        }
+    }
+
+    // Monthly change count and impact for the rows matching the same criteria as /filter.
+    // Served from memory; 503 only in the first moments after startup, before the data has loaded.
+    @GetMapping("/trend")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getTrend(
+            @RequestParam(required = false) String model,
+            @RequestParam(required = false) String supplier,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String changeType,
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) BigDecimal minImpact,
+            @RequestParam(required = false) BigDecimal maxImpact) {
+        try {
+            BomChangeFilter filter = filterOf(model, supplier, status, changeType, department,
+                    startDate, endDate, minImpact, maxImpact);
+            Optional<List<Map<String, Object>>> trend = bomChangeService.getTrend(filter);
+            if (trend.isEmpty()) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Trend data is still loading, please retry shortly");
+                return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            return new ResponseEntity<>(trend.get(), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return invalidPageRequest(e);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to generate trend: " + e.getMessage());
+            return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @GetMapping("/search")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<?> searchBomChanges(@RequestParam String term) {
+    public ResponseEntity<?> searchBomChanges(@RequestParam String term,
+                                              @RequestParam(required = false) Integer size) {
         try {
             if (term == null || term.trim().isEmpty()) {
                 Map<String, String> error = new HashMap<>();
@@ -381,8 +661,10 @@ public class BomChangeController {
                 return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
             }
 
-            List<BomChange> bomChanges = bomChangeService.searchBomChanges(term.trim());
+            List<BomChangeListItem> bomChanges = bomChangeService.searchBomChanges(term.trim(), pageSize(size));
             return new ResponseEntity<>(bomChanges, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return invalidPageRequest(e);
         } catch (Exception e) {
             e.printStackTrace();
             Map<String, String> error = new HashMap<>();
@@ -419,6 +701,82 @@ public class BomChangeController {
         }
     }
 
+    // Recomputes the summary rollup from the BOM change table, e.g. after writes made with triggers disabled
+    @PostMapping("/rollups/rebuild")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<?> rebuildRollup() {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("groups", bomChangeService.rebuildRollup());
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to rebuild summary rollup: " + e.getMessage());
+            return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Hit/miss/eviction counts of the caches behind /high-impact and /cost-savings
+    @GetMapping("/caches")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<?> getCacheStatistics() {
+        try {
+            return new ResponseEntity<>(bomChangeService.getCacheStatistics(), HttpStatus.OK);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to read cache statistics: " + e.getMessage());
+            return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Quarterly partitions of the BOM change table, with their row estimates and sizes
+    @GetMapping("/partitions")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<?> getPartitions() {
+        try {
+            return new ResponseEntity<>(partitionService.listPartitions(), HttpStatus.OK);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to list partitions: " + e.getMessage());
+            return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Detaches a past quarter (?quarter=2024-Q1) from the BOM change table into the archive schema,
+    // moving it to ?tablespace= when given
+    @PostMapping("/partitions/archive")
+    @PreAuthorize("hasRole('MANAGER')")
+    public ResponseEntity<?> archivePartition(@RequestParam String quarter,
+                                              @RequestParam(required = false) String tablespace) {
+        LocalDate quarterStart;
+        try {
+            quarterStart = LocalDate.parse(quarter.toUpperCase(), QUARTER_FORMAT);
+        } catch (DateTimeParseException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Quarter must look like 2024-Q1");
+            return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+        }
+        if (quarterStart.plusMonths(3).isAfter(LocalDate.now())) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Only past quarters can be archived");
+            return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+        }
+        try {
+            Map<String, Object> response = new HashMap<>();
+            response.put("quarter", quarter.toUpperCase());
+            response.put("archivedRows", partitionService.archive(quarterStart, tablespace));
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (Exception e) {
+            e.printStackTrace();
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to archive partition: " + e.getMessage());
+            return new ResponseEntity<>(error, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @GetMapping("/high-impact")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> getHighImpactChanges(@RequestParam Double threshold) {
@@ -429,7 +787,7 @@ public class BomChangeController {
                 return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
             }
 
-            List<BomChange> bomChanges = bomChangeService.getHighImpactChanges(threshold);
+            List<BomChangeListItem> bomChanges = bomChangeService.getHighImpactChanges(threshold);
 
             Map<String, Object> response = new HashMap<>();
             response.put("threshold", threshold);
@@ -455,7 +813,7 @@ public class BomChangeController {
                 return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
             }
 
-            List<BomChange> bomChanges = bomChangeService.getCostSavings(threshold);
+            List<BomChangeListItem> bomChanges = bomChangeService.getCostSavings(threshold);
 
             Map<String, Object> response = new HashMap<>();
             response.put("threshold", threshold);
@@ -475,21 +833,7 @@ public class BomChangeController {
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> getStatistics() {
         try {
-            List<BomChange> allChanges = bomChangeService.getAllBomChanges();
-
-            Map<String, Object> stats = new HashMap<>();
-            stats.put("totalChanges", allChanges.size());
-            stats.put("totalImpact", allChanges.stream().mapToDouble(bc -> bc.getImpact().doubleValue()).sum());
-            stats.put("averageImpact", allChanges.stream().mapToDouble(bc -> bc.getImpact().doubleValue()).average().orElse(0.0));
-
-            Map<String, Long> statusBreakdown = allChanges.stream()
-                    .collect(Collectors.groupingBy(bc -> bc.getStatus().toString(), Collectors.counting()));
-            stats.put("statusBreakdown", statusBreakdown);
-
-            Map<String, Long> typeBreakdown = allChanges.stream()
-                    .collect(Collectors.groupingBy(bc -> bc.getChangeType().toString(), Collectors.counting()));
-            stats.put("changeTypeBreakdown", typeBreakdown);
-
+            Map<String, Object> stats = bomChangeService.getStatistics();
             return new ResponseEntity<>(stats, HttpStatus.OK);
         } catch (Exception e) {
             e.printStackTrace();
@@ -508,4 +852,65 @@ public class BomChangeController {
         health.put("service", "BOM Changes API");
         return new ResponseEntity<>(health, HttpStatus.OK);
     }
-}
\ No newline at end of file
+
+    private static int pageSize(Integer size) {
+        if (size == null) return DEFAULT_PAGE_SIZE;
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return size;
+    }
+
+    // Shared by /filter and /trend; invalid criteria throw IllegalArgumentException with the message for a 400
+    private static BomChangeFilter filterOf(String model, String supplier, String status, String changeType,
+                                            String department, LocalDate startDate, LocalDate endDate,
+                                            BigDecimal minImpact, BigDecimal maxImpact) {
+        BomChangeStatus bomStatus = null;
+        if (hasValue(status)) {
+            try {
+                bomStatus = BomChangeStatus.valueOf(status.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid status: " + status + ". Valid statuses are: " + names(BomChangeStatus.values()));
+            }
+        }
+
+        BomChangeType bomChangeType = null;
+        if (hasValue(changeType)) {
+            try {
+                bomChangeType = BomChangeType.valueOf(changeType.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid change type: " + changeType + ". Valid types are: " + names(BomChangeType.values()));
+            }
+        }
+
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Start date cannot be after end date");
+        }
+
+        if (minImpact != null && maxImpact != null && minImpact.compareTo(maxImpact) > 0) {
+            throw new IllegalArgumentException("minImpact cannot be greater than maxImpact");
+        }
+
+        return new BomChangeFilter(
+                hasValue(model) ? model.trim() : null,
+                hasValue(supplier) ? supplier.trim() : null,
+                bomStatus,
+                bomChangeType,
+                hasValue(department) ? department.trim() : null,
+                startDate, endDate, minImpact, maxImpact);
+    }
+
+    private static boolean hasValue(String param) {
+        return param != null && !param.isBlank();
+    }
+
+    private static String names(Enum<?>[] values) {
+        return Arrays.stream(values).map(Enum::name).collect(Collectors.joining(", "));
+    }
+
+    private static ResponseEntity<?> invalidPageRequest(IllegalArgumentException e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", e.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+}
@@ -1,42 +1,99 @@
 package com.costedge.controller;
 
+import com.costedge.model.DTO.ImportCostListItem;
+import com.costedge.model.DTO.ImportSummary;
 import com.costedge.model.ImportCost;
 import com.costedge.services.ImportCostService;
+import com.costedge.services.imports.ImportJob;
+import com.costedge.services.imports.ImportJobService;
+import com.costedge.web.DataVersions;
+import com.costedge.web.EntityStreamWriter;
+import com.costedge.web.XlsxStreamWriter;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/import-costs")
 @CrossOrigin(origins = "*") // Enable CORS globally for this controller
 public class ImportCostController {
 
+    private static final List<XlsxStreamWriter.Column<ImportCostListItem>> EXPORT_COLUMNS = List.of(
+            new XlsxStreamWriter.Column<>("ID", ImportCostListItem::id),
+            new XlsxStreamWriter.Column<>("Shipment ID", ImportCostListItem::shipmentId),
+            new XlsxStreamWriter.Column<>("Date", ImportCostListItem::date),
+            new XlsxStreamWriter.Column<>("Supplier", ImportCostListItem::supplier),
+            new XlsxStreamWriter.Column<>("Model", ImportCostListItem::model),
+            new XlsxStreamWriter.Column<>("Part Name", ImportCostListItem::partName),
+            new XlsxStreamWriter.Column<>("Quantity", ImportCostListItem::quantity),
+            new XlsxStreamWriter.Column<>("Freight", ImportCostListItem::freight),
+            new XlsxStreamWriter.Column<>("Duty", ImportCostListItem::duty),
+            new XlsxStreamWriter.Column<>("Insurance", ImportCostListItem::insurance));
+
     private final ImportCostService importCostService;
+    private final ImportJobService importJobService;
+    private final EntityStreamWriter entityStreamWriter;
+    private final XlsxStreamWriter xlsxStreamWriter;
+    private final DataVersions dataVersions;
 
     @Autowired
-    public ImportCostController(ImportCostService importCostService) {
+    public ImportCostController(ImportCostService importCostService, ImportJobService importJobService,
+                                EntityStreamWriter entityStreamWriter, XlsxStreamWriter xlsxStreamWriter,
+                                DataVersions dataVersions) {
         this.importCostService = importCostService;
+        this.importJobService = importJobService;
+        this.entityStreamWriter = entityStreamWriter;
+        this.xlsxStreamWriter = xlsxStreamWriter;
+        this.dataVersions = dataVersions;
     }
 
     // ✅ Get all import cost records
     @GetMapping("/all")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<ImportCost>> getAllImportCosts() {
+    public ResponseEntity<List<ImportCostListItem>> getAllImportCosts(WebRequest request) {
         try {
-            List<ImportCost> records = importCostService.getAllImportCosts();
-            return ResponseEntity.ok(records);
+            // Unchanged since the client's copy: 304 before the list is queried
+            return dataVersions.conditionalGet(request, DataVersions.IMPORT_COSTS, importCostService::getAllImportCosts);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    // ✅ Streams every record as NDJSON (default) or, with format=json, as one JSON array;
+    // memory stays flat and the first rows are sent while the query is still running
+    @GetMapping("/stream")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> streamAllImportCosts(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        if ("json".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(entityStreamWriter.jsonArray(importCostService::streamAllImportCosts));
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON)
+                .body(entityStreamWriter.ndjson(importCostService::streamAllImportCosts));
+    }
+
+    // ✅ The /all list as an .xlsx download, written to the response as rows are read
+    @GetMapping("/export")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> exportImportCosts() {
+        return xlsxStreamWriter.download("import-costs", "Import Costs", EXPORT_COLUMNS,
+                importCostService::streamImportCostListItems);
+    }
+
     // ✅ Save multiple import costs from JSON body
     @PostMapping("/saveAllJson")
     @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('DATAENTRY')")
@@ -51,17 +108,58 @@ public class ImportCostController {
         }
     }
 
-    // ✅ Save multiple import costs from Excel upload
+    // ✅ Streaming ingest for ETL clients: NDJSON or CSV bodies are read record by record,
+    // merged on shipment ID in chunks, and never held in memory as a whole
+    @PostMapping(value = "/ingest", consumes = {"application/x-ndjson", "text/csv"})
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('DATAENTRY')")
+    public ResponseEntity<?> ingest(InputStream body, @RequestHeader("Content-Type") String contentType) {
+        ImportSummary summary = new ImportSummary();
+        try {
+            if (contentType.startsWith("text/csv")) {
+                importCostService.ingestCsv(body, summary);
+            } else {
+                importCostService.ingestNdjson(body, summary);
+            }
+            return ResponseEntity.ok(summary);
+        } catch (Exception e) {
+            e.printStackTrace();
+            // ✅ Chunks written before the failure stay committed
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to ingest import costs: " + e.getMessage(), "summary", summary));
+        }
+    }
+
+    // ✅ Queue an import cost Excel upload; progress is polled at /api/imports/{jobId}
     @PostMapping("/saveAll")
     @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('DATAENTRY')")
-    public ResponseEntity<List<ImportCost>> saveAllFromExcel(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> saveAllFromExcel(@RequestParam("file") MultipartFile file,
+                                              @RequestParam(value = "mode", defaultValue = "merge") String mode,
+                                              @RequestParam(value = "force", defaultValue = "false") boolean force) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
         try {
-            List<ImportCost> importCosts = importCostService.processExcelFile(file);
-            List<ImportCost> savedRecords = importCostService.saveAllImportCosts(importCosts);
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedRecords);
+            // ✅ Default merges rows on shipment ID; mode=copy bulk loads through PostgreSQL COPY
+            // (initial loads only, fails if a shipment already exists)
+            // ✅ An identical file imported recently is answered with the earlier result unless force=true
+            ImportJob job = importJobService.submit("import-costs", file, mode.toLowerCase(), force,
+                    "copy".equalsIgnoreCase(mode)
+                            ? importCostService::copyExcelFile
+                            : importCostService::importExcelFile);
+            if (job.getDuplicateOf() != null) {
+                return ResponseEntity.ok(Map.of(
+                        "jobId", job.getJobId(),
+                        "status", job.getStatus(),
+                        "statusUrl", "/api/imports/" + job.getJobId(),
+                        "duplicateOf", job.getDuplicateOf()));
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                    "jobId", job.getJobId(),
+                    "status", job.getStatus(),
+                    "statusUrl", "/api/imports/" + job.getJobId()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Too many imports in progress, please try again later"));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -0,0 +1,28 @@
+package com.costedge.controller;
+
+import com.costedge.services.imports.ImportJob;
+import com.costedge.services.imports.ImportJobService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/imports")
+@CrossOrigin(origins = "*")
+public class ImportJobController {
+
+    private final ImportJobService importJobService;
+
+    public ImportJobController(ImportJobService importJobService) {
+        this.importJobService = importJobService;
+    }
+
+    // Progress of a background Excel import: rows parsed/saved/failed, throughput and ETA
+    @GetMapping("/{jobId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<ImportJob> getImportJob(@PathVariable String jobId) {
+        return importJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
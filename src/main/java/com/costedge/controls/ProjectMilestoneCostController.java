@@ -1,11 +1,19 @@
 package com.costedge.controller;
 
+import com.costedge.model.DTO.MilestoneListItem;
+import com.costedge.model.DTO.MilestoneRollup;
 import com.costedge.model.ProjectMilestoneCost;
 import com.costedge.service.ProjectMilestoneCostService;
+import com.costedge.web.DataVersions;
+import com.costedge.web.EntityStreamWriter;
+import com.costedge.web.XlsxStreamWriter;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -17,11 +25,33 @@ import java.util.Optional;
 @CrossOrigin(origins = "*")
 public class ProjectMilestoneCostController {
 
+    private static final List<XlsxStreamWriter.Column<MilestoneListItem>> EXPORT_COLUMNS = List.of(
+            new XlsxStreamWriter.Column<>("ID", MilestoneListItem::id),
+            new XlsxStreamWriter.Column<>("Project ID", MilestoneListItem::projectID),
+            new XlsxStreamWriter.Column<>("Project Name", MilestoneListItem::projectName),
+            new XlsxStreamWriter.Column<>("Milestone", MilestoneListItem::milestone),
+            new XlsxStreamWriter.Column<>("Milestone Type", MilestoneListItem::milestoneType),
+            new XlsxStreamWriter.Column<>("Department", MilestoneListItem::department),
+            new XlsxStreamWriter.Column<>("Category", MilestoneListItem::category),
+            new XlsxStreamWriter.Column<>("Planned", MilestoneListItem::planned),
+            new XlsxStreamWriter.Column<>("Actual", MilestoneListItem::actual),
+            new XlsxStreamWriter.Column<>("Variance", MilestoneListItem::variance),
+            new XlsxStreamWriter.Column<>("Currency", MilestoneListItem::currency),
+            new XlsxStreamWriter.Column<>("Date", MilestoneListItem::date),
+            new XlsxStreamWriter.Column<>("Approval Status", MilestoneListItem::approvalStatus));
+
     private final ProjectMilestoneCostService service;
+    private final EntityStreamWriter entityStreamWriter;
+    private final XlsxStreamWriter xlsxStreamWriter;
+    private final DataVersions dataVersions;
 
     // ✅ Constructor-based injection (no Lombok)
-    public ProjectMilestoneCostController(ProjectMilestoneCostService service) {
+    public ProjectMilestoneCostController(ProjectMilestoneCostService service, EntityStreamWriter entityStreamWriter,
+                                          XlsxStreamWriter xlsxStreamWriter, DataVersions dataVersions) {
         this.service = service;
+        this.entityStreamWriter = entityStreamWriter;
+        this.xlsxStreamWriter = xlsxStreamWriter;
+        this.dataVersions = dataVersions;
     }
 
     // A placeholder for testing the MANAGER role.
@@ -57,16 +87,55 @@ public class ProjectMilestoneCostController {
 
     @GetMapping
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<ProjectMilestoneCost>> getAll() {
+    public ResponseEntity<List<MilestoneListItem>> getAll(WebRequest request) {
         try {
-            List<ProjectMilestoneCost> costs = service.getAll();
-            return ResponseEntity.ok(costs);
+            // ✅ Unchanged since the client's copy: 304 before the list is queried
+            return dataVersions.conditionalGet(request, DataVersions.MILESTONES, service::getAll);
         } catch (Exception e) {
             System.err.println("Error retrieving milestone costs: " + e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    // ✅ Planned vs actual totals, variance, over/under budget counts and unit costs per project,
+    // department and category; one line per group instead of every milestone
+    @GetMapping("/rollup")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<MilestoneRollup> getRollup() {
+        try {
+            return ResponseEntity.ok(service.getRollup());
+        } catch (Exception e) {
+            System.err.println("Error computing milestone rollup: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // ✅ Streams every milestone as NDJSON (default) or, with format=json, as one JSON array;
+    // memory stays flat and the first rows are sent while the query is still running
+    @GetMapping("/stream")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> streamAll(
+            @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        if ("json".equalsIgnoreCase(format)) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                    .body(entityStreamWriter.jsonArray(service::streamAll));
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON)
+                .body(entityStreamWriter.ndjson(service::streamAll));
+    }
+
+    // ✅ Milestones as an .xlsx download, written to the response as rows are read; the optional
+    // projectID, projectName and approvalStatus narrow it like the /project, /name and /approval-status lists
+    @GetMapping("/export")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) Integer projectID,
+                                                        @RequestParam(required = false) String projectName,
+                                                        @RequestParam(required = false) String approvalStatus) {
+        return xlsxStreamWriter.download("milestones", "Milestones", EXPORT_COLUMNS,
+                () -> service.streamListItems(projectID, projectName, approvalStatus));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<ProjectMilestoneCost> getById(@PathVariable Long id) {
@@ -77,9 +146,9 @@ public class ProjectMilestoneCostController {
 
     @GetMapping("/project/{projectID}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<ProjectMilestoneCost>> getByProjectID(@PathVariable Integer projectID) {
+    public ResponseEntity<List<MilestoneListItem>> getByProjectID(@PathVariable Integer projectID) {
         try {
-            List<ProjectMilestoneCost> costs = service.getByProjectID(projectID);
+            List<MilestoneListItem> costs = service.getByProjectID(projectID);
             return ResponseEntity.ok(costs);
         } catch (Exception e) {
             System.err.println("Error retrieving costs for project ID " + projectID + ": " + e.getMessage());
@@ -89,9 +158,9 @@ public class ProjectMilestoneCostController {
 
     @GetMapping("/name/{projectName}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<ProjectMilestoneCost>> getByProjectName(@PathVariable String projectName) {
+    public ResponseEntity<List<MilestoneListItem>> getByProjectName(@PathVariable String projectName) {
         try {
-            List<ProjectMilestoneCost> costs = service.getByProjectName(projectName);
+            List<MilestoneListItem> costs = service.getByProjectName(projectName);
             return ResponseEntity.ok(costs);
         } catch (Exception e) {
             System.err.println("Error retrieving costs for project name " + projectName + ": " + e.getMessage());
@@ -137,9 +206,9 @@ public class ProjectMilestoneCostController {
 
     @GetMapping("/approval-status/{status}")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<ProjectMilestoneCost>> getByApprovalStatus(@PathVariable String status) {
+    public ResponseEntity<List<MilestoneListItem>> getByApprovalStatus(@PathVariable String status) {
         try {
-            List<ProjectMilestoneCost> costs = service.getByApprovalStatus(status);
+            List<MilestoneListItem> costs = service.getByApprovalStatus(status);
             return ResponseEntity.ok(costs);
         } catch (Exception e) {
             System.err.println("Error retrieving costs by approval status " + status + ": " + e.getMessage());
@@ -7,11 +7,21 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "bom_changebox")
+@Table(name = "bom_changebox", uniqueConstraints = {
+        // Merge imports upsert on this key; one part can change once per model and effective date
+        @UniqueConstraint(name = "uk_bom_change_part_model_date",
+                columnNames = {"part_number", "model", "effective_date"})
+}, indexes = {
+        // Keyset pages of /all walk this index backwards from the cursor
+        @Index(name = "idx_bom_change_effective_date_id", columnList = "effective_date, id")
+})
 public class BomChange {
 
+    // The table's primary key is (id, effective_date); ids are still unique, see V9__bom_change_id_unique.sql
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequence ids (pooled, 50 per round trip) let Hibernate batch inserts; IDENTITY forces one INSERT per row
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bom_changebox_seq")
+    @SequenceGenerator(name = "bom_changebox_seq", sequenceName = "bom_changebox_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Model is required")
@@ -10,21 +10,27 @@ import java.time.LocalDateTime;
 @Table(name = "import_costs")
 public class ImportCost {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "import_costs_seq")
+    @SequenceGenerator(name = "import_costs_seq", sequenceName = "import_costs_seq", allocationSize = 50)
     private Long id;
 
+    @NotBlank(message = "Shipment ID is required")
     @Column(name = "shipment_id", unique = true, nullable = false)
     private String shipmentId;
 
+    @NotNull(message = "Date is required")
     @Column(name = "date", nullable = false)
     private LocalDate date;
 
+    @NotBlank(message = "Supplier is required")
     @Column(name = "supplier", nullable = false)
     private String supplier;
 
+    @NotBlank(message = "Model is required")
     @Column(name = "model", nullable = false)
     private String model;
 
+    @NotBlank(message = "Part name is required")
     @Column(name = "part_name", nullable = false)
     private String partName;
 
@@ -119,5 +125,8 @@ public class ImportCost {
     public void setDocument(String document) { this.document = document; }
 
     public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
     public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 }
@@ -0,0 +1,120 @@
+package com.costedge.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * One finished Excel import, recorded with the SHA-256 of the uploaded file so an identical
+ * re-upload can be answered with this result instead of importing the file again.
+ */
+@Entity
+@Table(name = "import_uploads",
+        indexes = @Index(name = "idx_import_uploads_type_hash", columnList = "import_type, content_hash, created_at"))
+public class ImportUpload {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false, length = 36)
+    private String jobId;
+
+    @Column(name = "import_type", nullable = false, length = 50)
+    private String importType;
+
+    @Column(name = "mode", length = 20)
+    private String mode;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "rows_read")
+    private long rowsRead;
+
+    @Column(name = "rows_saved")
+    private long rowsSaved;
+
+    @Column(name = "rows_failed")
+    private long rowsFailed;
+
+    @Column(name = "rows_inserted")
+    private long rowsInserted;
+
+    @Column(name = "rows_updated")
+    private long rowsUpdated;
+
+    @Column(name = "rows_unchanged")
+    private long rowsUnchanged;
+
+    // Reported row errors as a JSON array of {row, message}
+    @Column(name = "errors", columnDefinition = "text")
+    private String errors;
+
+    @Column(name = "error", length = 1000)
+    private String error;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getImportType() { return importType; }
+    public void setImportType(String importType) { this.importType = importType; }
+
+    public String getMode() { return mode; }
+    public void setMode(String mode) { this.mode = mode; }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public long getRowsRead() { return rowsRead; }
+    public void setRowsRead(long rowsRead) { this.rowsRead = rowsRead; }
+
+    public long getRowsSaved() { return rowsSaved; }
+    public void setRowsSaved(long rowsSaved) { this.rowsSaved = rowsSaved; }
+
+    public long getRowsFailed() { return rowsFailed; }
+    public void setRowsFailed(long rowsFailed) { this.rowsFailed = rowsFailed; }
+
+    public long getRowsInserted() { return rowsInserted; }
+    public void setRowsInserted(long rowsInserted) { this.rowsInserted = rowsInserted; }
+
+    public long getRowsUpdated() { return rowsUpdated; }
+    public void setRowsUpdated(long rowsUpdated) { this.rowsUpdated = rowsUpdated; }
+
+    public long getRowsUnchanged() { return rowsUnchanged; }
+    public void setRowsUnchanged(long rowsUnchanged) { this.rowsUnchanged = rowsUnchanged; }
+
+    public String getErrors() { return errors; }
+    public void setErrors(String errors) { this.errors = errors; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+}
@@ -1,15 +1,21 @@
 package com.costedge.model;
 
 
+    import com.fasterxml.jackson.annotation.JsonInclude;
+
     import java.util.List;
 
+    // Offset pages fill in page numbers and totals; keyset (cursor) pages leave them out
+    // and hand back nextCursor instead, which is null on the last page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public class PageResponse<T> {
         private List<T> content;
-        private int pageNumber;
+        private Integer pageNumber;
         private int pageSize;
-        private long totalElements;
-        private int totalPages;
+        private Long totalElements;
+        private Integer totalPages;
         private boolean last;
+        private String nextCursor;
 
         public PageResponse(List<T> content, int pageNumber, int pageSize, long totalElements, int totalPages, boolean last) {
             this.content = content;
@@ -20,5 +26,32 @@ package com.costedge.model;
             this.last = last;
         }
 
+        public PageResponse(List<T> content, int pageSize, String nextCursor) {
+            this.content = content;
+            this.pageSize = pageSize;
+            this.nextCursor = nextCursor;
+            this.last = nextCursor == null;
+        }
+
         // Getters and Setters
+        public List<T> getContent() { return content; }
+        public void setContent(List<T> content) { this.content = content; }
+
+        public Integer getPageNumber() { return pageNumber; }
+        public void setPageNumber(Integer pageNumber) { this.pageNumber = pageNumber; }
+
+        public int getPageSize() { return pageSize; }
+        public void setPageSize(int pageSize) { this.pageSize = pageSize; }
+
+        public Long getTotalElements() { return totalElements; }
+        public void setTotalElements(Long totalElements) { this.totalElements = totalElements; }
+
+        public Integer getTotalPages() { return totalPages; }
+        public void setTotalPages(Integer totalPages) { this.totalPages = totalPages; }
+
+        public boolean isLast() { return last; }
+        public void setLast(boolean last) { this.last = last; }
+
+        public String getNextCursor() { return nextCursor; }
+        public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
     }
@@ -0,0 +1,17 @@
+package com.costedge.repository;
+
+import com.costedge.model.BomChange;
+import com.costedge.model.DTO.BomChangeListItem;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.stream.Stream;
+
+// Streaming reads the derived and fluent queries cannot express: the fluent Specification query
+// streams without a fetch size, which makes the PostgreSQL driver buffer the whole result
+public interface BomChangeExportRepository {
+
+    // Rows matching the specification as BomChangeListItem, read from a JDBC cursor in fetch-size
+    // chunks; use inside a transaction
+    Stream<BomChangeListItem> streamListItems(Specification<BomChange> specification, Sort sort);
+}
@@ -0,0 +1,41 @@
+package com.costedge.repository;
+
+import com.costedge.model.BomChange;
+import com.costedge.model.DTO.BomChangeListItem;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.stream.Stream;
+
+class BomChangeExportRepositoryImpl implements BomChangeExportRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final EntityManager entityManager;
+
+    BomChangeExportRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Stream<BomChangeListItem> streamListItems(Specification<BomChange> specification, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BomChangeListItem> query = cb.createQuery(BomChangeListItem.class);
+        Root<BomChange> b = query.from(BomChange.class);
+        query.select(cb.construct(BomChangeListItem.class,
+                b.get("id"), b.get("model"), b.get("partName"), b.get("partNumber"), b.get("oldCost"),
+                b.get("newCost"), b.get("impact"), b.get("supplier"), b.get("effectiveDate"),
+                b.get("changeType"), b.get("status"), b.get("department"), b.get("quantity")));
+        query.where(specification.toPredicate(b, query, cb));
+        query.orderBy(QueryUtils.toOrders(sort, b, cb));
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, FETCH_SIZE)
+                .getResultStream();
+    }
+}
@@ -3,17 +3,28 @@ package com.costedge.repository;
 import com.costedge.model.BomChange;
 import com.costedge.model.BomChangeStatus;
 import com.costedge.model.BomChangeType;
+import com.costedge.model.DTO.BomChangeListItem;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface BomChangeRepository extends JpaRepository<BomChange, Long> {
+public interface BomChangeRepository extends JpaRepository<BomChange, Long>, JpaSpecificationExecutor<BomChange>,
+        BomChangeExportRepository {
 
     Optional<BomChange> findByPartNumber(String partNumber);
     boolean existsByPartNumber(String partNumber);
@@ -25,21 +36,69 @@ public interface BomChangeRepository extends JpaRepository<BomChange, Long> {
     List<BomChange> findByChangeType(BomChangeType changeType);
 
     List<BomChange> findByEffectiveDateBetween(LocalDate startDate, LocalDate endDate);
+
+    // List views: with a record type (BomChangeListItem) Spring Data selects through a constructor
+    // expression over the record's components, so only those columns are read and no entity is loaded
+    <T> List<T> findByStatus(BomChangeStatus status, Class<T> type);
+    <T> List<T> findByDepartment(String department, Class<T> type);
+    <T> List<T> findByModel(String model, Class<T> type);
+    <T> List<T> findBySupplier(String supplier, Class<T> type);
+    <T> List<T> findByChangeType(BomChangeType changeType, Class<T> type);
+    <T> List<T> findByEffectiveDateBetween(LocalDate startDate, LocalDate endDate, Class<T> type);
     List<BomChange> findByEffectiveDateAfter(LocalDate date);
     List<BomChange> findByEffectiveDateBefore(LocalDate date);
 
-    // Custom search across multiple fields
-    @Query("SELECT b FROM BomChange b WHERE " +
-            "LOWER(b.partName) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-            "LOWER(b.partNumber) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-            "LOWER(b.supplier) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-            "LOWER(b.model) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
-    List<BomChange> searchBomChanges(@Param("searchTerm") String searchTerm);
+    // Substring search across part name, part number, supplier and model; exact values first (newest first),
+    // then by the best trigram similarity among the columns containing the term.
+    // Candidates are the newest :limit exact matches plus, per column, the :limit closest rows containing the term,
+    // read in distance order from the pg_trgm GiST indexes (V8__bom_change_search_gist.sql). Every row of the
+    // final top :limit is among them, and a broad term reads a few hundred rows instead of all its matches.
+    default List<BomChange> searchBomChanges(String searchTerm, int limit) {
+        String escaped = searchTerm.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return searchBomChanges(escaped, "%" + escaped + "%", searchTerm, limit);
+    }
+
+    @Query(value = "SELECT * FROM bom_changebox b WHERE b.id IN (" +
+            "(SELECT id FROM bom_changebox WHERE part_name ILIKE :exact OR part_number ILIKE :exact " +
+            "OR supplier ILIKE :exact OR model ILIKE :exact ORDER BY id DESC LIMIT :limit) " +
+            "UNION ALL (SELECT id FROM bom_changebox WHERE part_name ILIKE :pattern " +
+            "ORDER BY part_name <-> :term, id DESC LIMIT :limit) " +
+            "UNION ALL (SELECT id FROM bom_changebox WHERE part_number ILIKE :pattern " +
+            "ORDER BY part_number <-> :term, id DESC LIMIT :limit) " +
+            "UNION ALL (SELECT id FROM bom_changebox WHERE supplier ILIKE :pattern " +
+            "ORDER BY supplier <-> :term, id DESC LIMIT :limit) " +
+            "UNION ALL (SELECT id FROM bom_changebox WHERE model ILIKE :pattern " +
+            "ORDER BY model <-> :term, id DESC LIMIT :limit)) " +
+            "ORDER BY (b.part_name ILIKE :exact OR b.part_number ILIKE :exact " +
+            "OR b.supplier ILIKE :exact OR b.model ILIKE :exact) DESC, " +
+            "GREATEST(CASE WHEN b.part_name ILIKE :pattern THEN similarity(:term, b.part_name) ELSE 0 END, " +
+            "CASE WHEN b.part_number ILIKE :pattern THEN similarity(:term, b.part_number) ELSE 0 END, " +
+            "CASE WHEN b.supplier ILIKE :pattern THEN similarity(:term, b.supplier) ELSE 0 END, " +
+            "CASE WHEN b.model ILIKE :pattern THEN similarity(:term, b.model) ELSE 0 END) DESC, b.id DESC " +
+            "LIMIT :limit", nativeQuery = true)
+    List<BomChange> searchBomChanges(@Param("exact") String exact, @Param("pattern") String pattern,
+                                     @Param("term") String term, @Param("limit") int limit);
 
     List<BomChange> findByModelAndStatus(String model, BomChangeStatus status);
     List<BomChange> findBySupplierAndChangeType(String supplier, BomChangeType changeType);
 
-    List<BomChange> findAllByOrderByEffectiveDateDesc();
+    // Keyset (cursor) pages: pass a KeysetScrollPosition and Sort by (effectiveDate, id) desc,
+    // so every page is an index range scan instead of an OFFSET over all earlier rows.
+    // The type must include the sort properties, which the next position is read from.
+    <T> Window<T> findAllBy(ScrollPosition position, Limit limit, Sort sort, Class<T> type);
+    <T> Window<T> findByStatus(BomChangeStatus status, ScrollPosition position, Limit limit, Sort sort, Class<T> type);
+    <T> Window<T> findByDepartment(String department, ScrollPosition position, Limit limit, Sort sort, Class<T> type);
+    <T> Window<T> findByModel(String model, ScrollPosition position, Limit limit, Sort sort, Class<T> type);
+    <T> Window<T> findBySupplier(String supplier, ScrollPosition position, Limit limit, Sort sort, Class<T> type);
+    <T> Window<T> findByEffectiveDateBetween(LocalDate startDate, LocalDate endDate,
+                                             ScrollPosition position, Limit limit, Sort sort, Class<T> type);
+
+    // id breaks ties so the same data always lists in the same order (the list is sent with an ETag)
+    <T> List<T> findAllByOrderByEffectiveDateDescIdDesc(Class<T> type);
+
+    // Export-style reads: rows come from a JDBC cursor in fetch-size chunks; use inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<BomChange> streamAllByOrderByEffectiveDateDescIdDesc();
     List<BomChange> findAllByOrderByEffectiveDateAsc();
 
     @Query("SELECT b FROM BomChange b WHERE b.impact > :impactValue")
@@ -48,9 +107,35 @@ public interface BomChangeRepository extends JpaRepository<BomChange, Long> {
     @Query("SELECT b FROM BomChange b WHERE b.impact < :impactValue")
     List<BomChange> findByImpactLessThan(@Param("impactValue") Double impactValue);
 
-    @Query("SELECT b.model, COUNT(b), SUM(b.impact) FROM BomChange b GROUP BY b.model")
+    String LIST_ITEM = "SELECT new com.costedge.model.DTO.BomChangeListItem(b.id, b.model, b.partName, " +
+            "b.partNumber, b.oldCost, b.newCost, b.impact, b.supplier, b.effectiveDate, b.changeType, b.status, " +
+            "b.department, b.quantity) FROM BomChange b ";
+
+    @Query(LIST_ITEM + "WHERE b.impact > :impactValue")
+    List<BomChangeListItem> findListItemsByImpactGreaterThan(@Param("impactValue") Double impactValue);
+
+    @Query(LIST_ITEM + "WHERE b.impact < :impactValue")
+    List<BomChangeListItem> findListItemsByImpactLessThan(@Param("impactValue") Double impactValue);
+
+    // Summaries and stats read bom_change_rollup, which triggers keep in step with bom_changebox
+    // (V4__bom_change_rollup.sql), so they never scan the fact table.
+    @Query(value = "SELECT model, SUM(change_count)::bigint, SUM(total_impact) FROM bom_change_rollup " +
+            "GROUP BY model", nativeQuery = true)
     List<Object[]> getSummaryByModel();
 
-    @Query("SELECT b.changeType, COUNT(b), SUM(b.impact) FROM BomChange b GROUP BY b.changeType")
+    @Query(value = "SELECT change_type, SUM(change_count)::bigint, SUM(total_impact) FROM bom_change_rollup " +
+            "GROUP BY change_type", nativeQuery = true)
     List<Object[]> getSummaryByChangeType();
+
+    // Totals and both breakdowns in one pass: the () grouping set is the grand total, (status) and
+    // (change_type) the breakdowns. Columns: by_status, by_type, key, count, sum(impact), avg(impact).
+    @Query(value = "SELECT GROUPING(status) = 0, GROUPING(change_type) = 0, COALESCE(status, change_type), " +
+            "COALESCE(SUM(change_count), 0), COALESCE(SUM(total_impact), 0), " +
+            "COALESCE(SUM(total_impact) / NULLIF(SUM(impact_count), 0), 0) " +
+            "FROM bom_change_rollup GROUP BY GROUPING SETS ((), (status), (change_type))", nativeQuery = true)
+    List<Object[]> getStatistics();
+
+    // Recomputes bom_change_rollup from bom_changebox; returns the number of groups written
+    @Query(value = "SELECT rebuild_bom_change_rollup()", nativeQuery = true)
+    long rebuildRollup();
 }
@@ -0,0 +1,50 @@
+package com.costedge.repository;
+
+import com.costedge.model.BomChange;
+import com.costedge.model.DTO.BomChangeFilter;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BomChangeSpecifications {
+
+    private BomChangeSpecifications() {
+    }
+
+    // One WHERE clause ANDing only the criteria that are set, with every value bound as a parameter
+    public static Specification<BomChange> matching(BomChangeFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.model() != null) {
+                predicates.add(cb.equal(root.get("model"), filter.model()));
+            }
+            if (filter.supplier() != null) {
+                predicates.add(cb.equal(root.get("supplier"), filter.supplier()));
+            }
+            if (filter.status() != null) {
+                predicates.add(cb.equal(root.get("status"), filter.status()));
+            }
+            if (filter.changeType() != null) {
+                predicates.add(cb.equal(root.get("changeType"), filter.changeType()));
+            }
+            if (filter.department() != null) {
+                predicates.add(cb.equal(root.get("department"), filter.department()));
+            }
+            if (filter.startDate() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("effectiveDate"), filter.startDate()));
+            }
+            if (filter.endDate() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("effectiveDate"), filter.endDate()));
+            }
+            if (filter.minImpact() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("impact"), filter.minImpact()));
+            }
+            if (filter.maxImpact() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("impact"), filter.maxImpact()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
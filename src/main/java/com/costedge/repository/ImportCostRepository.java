@@ -1,13 +1,35 @@
 package com.costedge.repository;
 
+import com.costedge.model.DTO.ImportCostListItem;
 import com.costedge.model.ImportCost;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ImportCostRepository extends JpaRepository<ImportCost, Long> {
     // Spring Data JPA will automatically create a query to find records by supplier
     List<ImportCost> findBySupplier(String supplier);
+
+    // List view: only ImportCostListItem's columns, in id order
+    String LIST_ITEM = "SELECT new com.costedge.model.DTO.ImportCostListItem(c.id, c.shipmentId, c.date, " +
+            "c.supplier, c.model, c.partName, c.quantity, c.freight, c.duty, c.insurance) FROM ImportCost c ";
+
+    @Query(LIST_ITEM + "ORDER BY c.id")
+    List<ImportCostListItem> findAllListItems();
+
+    // Excel export: the same rows and order as findAllListItems, from a cursor; use inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(LIST_ITEM + "ORDER BY c.id")
+    Stream<ImportCostListItem> streamListItems();
+
+    // Export-style reads: rows come from a JDBC cursor in fetch-size chunks; use inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<ImportCost> streamAllByOrderByIdAsc();
 }
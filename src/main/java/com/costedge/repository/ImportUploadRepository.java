@@ -0,0 +1,16 @@
+package com.costedge.repository;
+
+import com.costedge.model.ImportUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface ImportUploadRepository extends JpaRepository<ImportUpload, Long> {
+
+    // Latest completed import of the same file content in the same mode since the given time
+    Optional<ImportUpload> findFirstByImportTypeAndModeAndContentHashAndStatusAndCreatedAtAfterOrderByCreatedAtDesc(
+            String importType, String mode, String contentHash, String status, Instant createdAfter);
+}
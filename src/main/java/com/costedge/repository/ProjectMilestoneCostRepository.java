@@ -1,14 +1,62 @@
 package com.costedge.repository;
 
+import com.costedge.model.DTO.MilestoneListItem;
 import com.costedge.model.ProjectMilestoneCost;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProjectMilestoneCostRepository extends JpaRepository<ProjectMilestoneCost, Long> {
-    List<ProjectMilestoneCost> findByProjectID(Integer projectID);
-    List<ProjectMilestoneCost> findByProjectName(String projectName);
-    List<ProjectMilestoneCost> findByApprovalStatus(String status);
+
+    // Grid views select only MilestoneListItem's columns; the long text columns are never read
+    String LIST_ITEM = "SELECT new com.costedge.model.DTO.MilestoneListItem(m.id, m.projectID, m.projectName, " +
+            "m.milestone, m.milestoneType, m.department, m.category, m.planned, m.actual, m.variance, " +
+            "m.currency, m.date, m.approvalStatus) FROM ProjectMilestoneCost m ";
+
+    @Query(LIST_ITEM + "ORDER BY m.id")
+    List<MilestoneListItem> findAllListItems();
+
+    @Query(LIST_ITEM + "WHERE m.projectID = :projectID ORDER BY m.id")
+    List<MilestoneListItem> findListItemsByProjectID(@Param("projectID") Integer projectID);
+
+    @Query(LIST_ITEM + "WHERE m.projectName = :projectName ORDER BY m.id")
+    List<MilestoneListItem> findListItemsByProjectName(@Param("projectName") String projectName);
+
+    @Query(LIST_ITEM + "WHERE m.approvalStatus = :status ORDER BY m.id")
+    List<MilestoneListItem> findListItemsByApprovalStatus(@Param("status") String status);
+
+    // Excel export: the grid filters combined, each applied only when set
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(LIST_ITEM + "WHERE (:projectID IS NULL OR m.projectID = :projectID) " +
+            "AND (:projectName IS NULL OR m.projectName = :projectName) " +
+            "AND (:status IS NULL OR m.approvalStatus = :status) ORDER BY m.id")
+    Stream<MilestoneListItem> streamListItems(@Param("projectID") Integer projectID,
+                                              @Param("projectName") String projectName,
+                                              @Param("status") String status);
+
+    // Totals per (project, currency), (department, currency) and (category, currency) in one scan.
+    // Columns: by_project, by_department, project_id, project_name, department, category, currency,
+    // count, planned, actual, variance, over budget, under budget, unit planned cost, unit actual cost.
+    // Unit costs are rounded per milestone, as ProjectMilestoneCost.getUnitPlannedCost does, then summed
+    @Query(value = "SELECT GROUPING(project_id, project_name) = 0, GROUPING(department) = 0, " +
+            "project_id, project_name, department, category, currency, COUNT(*), SUM(planned), SUM(actual), " +
+            "COALESCE(SUM(variance), 0), COUNT(*) FILTER (WHERE variance > 0), COUNT(*) FILTER (WHERE variance < 0), " +
+            "COALESCE(SUM(ROUND(planned / project_quantity, 2)) FILTER (WHERE project_quantity > 0), 0), " +
+            "COALESCE(SUM(ROUND(actual / project_quantity, 2)) FILTER (WHERE project_quantity > 0), 0) " +
+            "FROM project_milestone_costs " +
+            "GROUP BY GROUPING SETS ((project_id, project_name, currency), (department, currency), (category, currency)) " +
+            "ORDER BY project_id, project_name, department, category, currency", nativeQuery = true)
+    List<Object[]> getRollup();
+
+    // Export-style reads: rows come from a JDBC cursor in fetch-size chunks; use inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<ProjectMilestoneCost> streamAllByOrderByIdAsc();
 }
@@ -0,0 +1,67 @@
+package com.costedge.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Sends read-only transactions to a read replica when {@code costedge.datasource.replica.url} is set;
+ * without it the auto-configured primary pool is used for everything.
+ *
+ * <p>The application DataSource is a LazyConnectionDataSourceProxy over the primary pool. It opens
+ * the physical connection at the first statement, after the transaction manager has marked the
+ * connection read-only, and takes read-only connections from a {@link ReplicaFallbackDataSource}.
+ * Everything else goes to the primary: writes, non-transactional statements, Flyway, and
+ * read-write transactions even when they only read.
+ */
+@Configuration
+@ConditionalOnProperty("costedge.datasource.replica.url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("costedge.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${costedge.datasource.replica.url}") String url,
+                                              @Value("${costedge.datasource.replica.username:${spring.datasource.username}}") String username,
+                                              @Value("${costedge.datasource.replica.password:${spring.datasource.password}}") String password) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        replica.setJdbcUrl(url);
+        replica.setUsername(username);
+        replica.setPassword(password);
+        replica.setReadOnly(true);
+        // Start even if the replica is down; reads use the primary until it is reachable
+        replica.setInitializationFailTimeout(-1);
+        return replica;
+    }
+
+    @Bean
+    public ReplicaFallbackDataSource readOnlyDataSource(
+            HikariDataSource replicaDataSource, HikariDataSource primaryDataSource,
+            @Value("${costedge.datasource.replica.max-lag:PT5S}") Duration maxLag,
+            @Value("${costedge.datasource.replica.check-interval:PT2S}") Duration checkInterval) {
+        return new ReplicaFallbackDataSource(replicaDataSource, primaryDataSource, maxLag, checkInterval);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaFallbackDataSource readOnlyDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(readOnlyDataSource);
+        return dataSource;
+    }
+}
@@ -0,0 +1,180 @@
+package com.costedge.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connections for read-only transactions: from the replica while it is reachable and no more than
+ * {@code maxLag} behind, otherwise from the primary. A background check measures the replica's replay
+ * lag every {@code checkInterval}; a replica connection that fails to open also switches reads to the
+ * primary until the next successful check.
+ *
+ * <p>Lag is measured against the primary rather than by the replica alone: a standby that has lost its
+ * connection has replayed everything it received and would look current forever. Each check notes the
+ * primary's WAL position, and the lag is how long ago the replica last had replayed all of the primary's WAL
+ * (to within one check interval). While the primary writes nothing there is nothing to miss, so an idle
+ * pair stays at no lag.
+ */
+public class ReplicaFallbackDataSource extends AbstractDataSource implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaFallbackDataSource.class);
+
+    // WAL positions as byte offsets, so they compare as numbers
+    private static final String PRIMARY_POSITION = "SELECT pg_wal_lsn_diff(pg_current_wal_lsn(), '0/0')::bigint";
+    // NULL when the server is not a standby
+    private static final String REPLAYED_POSITION = "SELECT CASE WHEN pg_is_in_recovery() " +
+            "THEN pg_wal_lsn_diff(pg_last_wal_replay_lsn(), '0/0')::bigint END";
+
+    private final DataSource replica;
+    private final DataSource primary;
+    private final Duration maxLag;
+    private final Duration checkInterval;
+    private final ScheduledExecutorService scheduler;
+    // Only touched by the check thread
+    private final ReplayLag replayLag = new ReplayLag();
+    // Reads stay on the primary until the first check has passed
+    private volatile boolean replicaUsable;
+
+    public ReplicaFallbackDataSource(DataSource replica, DataSource primary, Duration maxLag, Duration checkInterval) {
+        this.replica = replica;
+        this.primary = primary;
+        this.maxLag = maxLag;
+        this.checkInterval = checkInterval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    /** Whether read-only transactions currently go to the replica. */
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicaUsable) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                markUsable(false, "connection failed: " + e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (replicaUsable) {
+            try {
+                return replica.getConnection(username, password);
+            } catch (SQLException e) {
+                markUsable(false, "connection failed: " + e.getMessage());
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+
+    private void check() {
+        try {
+            // Read before the replica, so a replica that is keeping up has already replayed it
+            long primaryPosition = queryPosition(primary, PRIMARY_POSITION);
+            replayLag.primaryAt(primaryPosition, System.nanoTime());
+            Long replayedPosition = queryPosition(replica, REPLAYED_POSITION);
+            if (replayedPosition == null) {
+                markUsable(false, "it is not a standby server");
+                return;
+            }
+            Duration lag = Duration.ofNanos(replayLag.replayedTo(replayedPosition, System.nanoTime()));
+            if (lag.compareTo(maxLag) > 0) {
+                markUsable(false, String.format("replay lag %.1fs exceeds %ss",
+                        lag.toMillis() / 1000.0, maxLag.toSeconds()));
+            } else {
+                markUsable(true, null);
+            }
+        } catch (Exception e) {
+            markUsable(false, "check failed: " + e.getMessage());
+        }
+    }
+
+    private static Long queryPosition(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            long position = rs.getLong(1);
+            return rs.wasNull() ? null : position;
+        }
+    }
+
+    private synchronized void markUsable(boolean usable, String reason) {
+        if (usable == replicaUsable) {
+            return;
+        }
+        replicaUsable = usable;
+        if (usable) {
+            log.info("Read replica available, read-only transactions use it");
+        } else {
+            log.warn("Read replica not used, read-only transactions go to the primary: {}", reason);
+        }
+    }
+
+    /**
+     * Primary WAL positions the replica has not replayed yet, oldest first, each with when it was seen.
+     * The lag is the age of the oldest; with none outstanding the replica is current.
+     */
+    static final class ReplayLag {
+
+        // A replica hours behind does not need every sample; dropping the second oldest keeps the
+        // oldest, so the lag is never understated
+        static final int MAX_SAMPLES = 1000;
+
+        private final ArrayDeque<long[]> pending = new ArrayDeque<>();
+
+        void primaryAt(long position, long nanos) {
+            long[] newest = pending.peekLast();
+            if (newest != null && newest[0] >= position) {
+                return;
+            }
+            if (pending.size() == MAX_SAMPLES) {
+                long[] oldest = pending.pollFirst();
+                pending.pollFirst();
+                pending.addFirst(oldest);
+            }
+            pending.addLast(new long[]{position, nanos});
+        }
+
+        /** Nanoseconds the replica is behind, given the position it has replayed to. */
+        long replayedTo(long position, long nanos) {
+            while (!pending.isEmpty() && pending.peekFirst()[0] <= position) {
+                pending.pollFirst();
+            }
+            return pending.isEmpty() ? 0 : nanos - pending.peekFirst()[1];
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.costedge.services;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains the quarterly partitions of bom_changebox (V7__bom_change_partitions.sql). A background
+ * thread creates partitions covering the coming {@code costedge.partitions.months-ahead} months at
+ * startup and every {@code costedge.partitions.check-interval}, and moves rows that landed in the
+ * default partition into partitions of their own. Past quarters can be archived: detached from
+ * bom_changebox into the bom_change_archive schema, optionally in another tablespace.
+ *
+ * <p>Statements run outside any transaction: the archive procedure commits part way through.
+ */
+@Service
+public class BomChangePartitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BomChangePartitionService.class);
+
+    private static final String CREATE_PARTITIONS = "SELECT create_bom_change_partitions(?)";
+
+    private static final String ARCHIVE_PARTITION = "CALL archive_bom_change_partition(?, ?, NULL)";
+
+    private static final String LIST_PARTITIONS = "SELECT c.relname, pg_get_expr(c.relpartbound, c.oid), " +
+            "c.reltuples::bigint, pg_total_relation_size(c.oid) " +
+            "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'bom_changebox'::regclass ORDER BY c.relname";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final Duration checkInterval;
+    private final ScheduledExecutorService scheduler;
+
+    public BomChangePartitionService(DataSource dataSource,
+                                     @Value("${costedge.partitions.months-ahead:3}") int monthsAhead,
+                                     @Value("${costedge.partitions.check-interval:PT6H}") Duration checkInterval) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.monthsAhead = monthsAhead;
+        this.checkInterval = checkInterval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bom-partitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::maintain, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /** Creates missing partitions now; returns how many were created. */
+    public int createPartitions() {
+        Integer created = jdbcTemplate.queryForObject(CREATE_PARTITIONS, Integer.class, monthsAhead);
+        return created == null ? 0 : created;
+    }
+
+    /**
+     * Detaches the partition of the quarter starting on {@code quarter} into bom_change_archive,
+     * moving it to {@code tablespace} unless that is null. Its rows leave bom_changebox, the
+     * summaries and the cached query results as if deleted. Returns the number of rows archived.
+     */
+    @CacheEvict(cacheNames = {CacheConfig.HIGH_IMPACT_CHANGES, CacheConfig.COST_SAVINGS}, allEntries = true)
+    public long archive(LocalDate quarter, String tablespace) {
+        Long archived = jdbcTemplate.queryForObject(ARCHIVE_PARTITION, Long.class, quarter, tablespace);
+        return archived == null ? 0 : archived;
+    }
+
+    /** Name, bounds, estimated row count and size on disk (with indexes) of each partition. */
+    public List<Map<String, Object>> listPartitions() {
+        return jdbcTemplate.query(LIST_PARTITIONS, (rs, rowNum) -> Map.of(
+                "name", rs.getString(1),
+                "bounds", rs.getString(2),
+                // -1 until the partition has been vacuumed or analyzed
+                "estimatedRows", rs.getLong(3),
+                "totalBytes", rs.getLong(4)));
+    }
+
+    private void maintain() {
+        try {
+            int created = createPartitions();
+            if (created > 0) {
+                log.info("Created {} BOM change partition(s)", created);
+            }
+        } catch (Exception e) {
+            log.error("BOM change partition maintenance failed", e);
+        }
+    }
+}
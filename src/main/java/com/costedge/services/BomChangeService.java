@@ -30,7 +30,7 @@ public class BomChangeService {
 
     // Basic CRUD operations
     public List<BomChange> getAllBomChanges() {
-        return bomChangeRepository.findAllByOrderByEffectiveDateDesc();
+        return bomChangeRepository.findAllByOrderByEffectiveDateDescIdDesc(BomChange.class);
     }
 
     public Optional<BomChange> getBomChangeById(Long id) {
@@ -92,8 +92,8 @@ public class BomChangeService {
         return bomChangeRepository.findByEffectiveDateBetween(startDate, endDate);
     }
 
-    public List<BomChange> searchBomChanges(String searchTerm) {
-        return bomChangeRepository.searchBomChanges(searchTerm);
+    public List<BomChange> searchBomChanges(String searchTerm, int limit) {
+        return bomChangeRepository.searchBomChanges(searchTerm, limit);
     }
 
     // Excel processing method
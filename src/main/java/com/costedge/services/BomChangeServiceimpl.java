@@ -3,36 +3,124 @@ package com.costedge.services;
 import com.costedge.model.BomChange;
 import com.costedge.model.BomChangeStatus;
 import com.costedge.model.BomChangeType;
+import com.costedge.model.DTO.BomChangeFilter;
+import com.costedge.model.DTO.BomChangeListItem;
+import com.costedge.model.DTO.ImportSummary;
+import com.costedge.model.PageResponse;
 import com.costedge.repository.BomChangeRepository;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import com.costedge.repository.BomChangeSpecifications;
+import com.costedge.services.analytics.BomChangeAnalytics;
+import com.costedge.services.imports.BomChangeRowMapper;
+import com.costedge.services.imports.ImportPipeline;
+import com.costedge.services.imports.PgCopyLoader;
+import com.costedge.services.imports.PgUpsertWriter;
+import com.costedge.services.imports.RecordStreamIngester;
+import com.costedge.services.imports.SequenceIdAllocator;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.time.ZoneId;
 import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class BomChangeServiceimpl {
 
+    // bom_changebox columns written by COPY and merge imports (id is allocated separately)
+    private static final List<String> INSERT_COLUMNS = List.of(
+            "model", "part_name", "part_number", "old_cost", "new_cost", "impact", "supplier",
+            "effective_date", "change_type", "status", "department", "remarks", "document", "quantity");
+
+    // Merge imports: upsert on (part_number, model, effective_date); an existing document link is kept
+    private static final PgUpsertWriter.Target<BomChange> MERGE_TARGET = new PgUpsertWriter.Target<>(
+            "bom_changebox", INSERT_COLUMNS,
+            List.of("part_number", "model", "effective_date"),
+            List.of("part_name", "old_cost", "new_cost", "impact", "supplier", "change_type",
+                    "status", "department", "remarks", "quantity"),
+            BomChangeServiceimpl::toColumnValues,
+            bomChange -> List.of(bomChange.getPartNumber(), bomChange.getModel(), bomChange.getEffectiveDate()));
+
+    // Keyset page order; id breaks ties between rows with the same effective date
+    private static final Sort KEYSET_ORDER = Sort.by(Sort.Direction.DESC, "effectiveDate", "id");
+
+    // Fields the filter endpoint can sort on; id is always appended so page boundaries are stable
+    private static final List<String> FILTER_SORT_FIELDS = List.of(
+            "effectiveDate", "impact", "oldCost", "newCost", "partNumber", "partName",
+            "model", "supplier", "department", "status", "changeType");
+
     private final BomChangeRepository bomChangeRepository;
+    private final ImportPipeline importPipeline;
+    private final BomChangeRowMapper rowMapper;
+    private final JpaBatchWriter batchWriter;
+    private final PgCopyLoader copyLoader;
+    private final PgUpsertWriter upsertWriter;
+    private final SequenceIdAllocator idAllocator;
+    private final RecordStreamIngester recordIngester;
+    private final BomChangeAnalytics analytics;
+    private final CacheManager cacheManager;
 
     @Autowired
-    public BomChangeServiceimpl(BomChangeRepository bomChangeRepository) {
+    public BomChangeServiceimpl(BomChangeRepository bomChangeRepository,
+                                ImportPipeline importPipeline,
+                                BomChangeRowMapper rowMapper,
+                                JpaBatchWriter batchWriter,
+                                PgCopyLoader copyLoader,
+                                PgUpsertWriter upsertWriter,
+                                SequenceIdAllocator idAllocator,
+                                RecordStreamIngester recordIngester,
+                                BomChangeAnalytics analytics,
+                                CacheManager cacheManager) {
         this.bomChangeRepository = bomChangeRepository;
+        this.importPipeline = importPipeline;
+        this.rowMapper = rowMapper;
+        this.batchWriter = batchWriter;
+        this.copyLoader = copyLoader;
+        this.upsertWriter = upsertWriter;
+        this.idAllocator = idAllocator;
+        this.recordIngester = recordIngester;
+        this.analytics = analytics;
+        this.cacheManager = cacheManager;
     }
 
     // Basic CRUD operations
-    public List<BomChange> getAllBomChanges() {
-        return bomChangeRepository.findAllByOrderByEffectiveDateDesc();
+    // List endpoints return BomChangeListItem, read without remarks and document links;
+    // the full entity is only loaded by id or part number.
+    // readOnly reads go to the read replica when one is configured (ReplicaDataSourceConfig)
+    @Transactional(readOnly = true)
+    public List<BomChangeListItem> getAllBomChanges() {
+        return bomChangeRepository.findAllByOrderByEffectiveDateDescIdDesc(BomChangeListItem.class);
     }
 
+    // Same order as getAllBomChanges; caller must consume and close the stream inside a transaction
+    @Transactional(readOnly = true)
+    public Stream<BomChange> streamAllBomChanges() {
+        return bomChangeRepository.streamAllByOrderByEffectiveDateDescIdDesc();
+    }
+
+    // Lookups by id and part number stay on the primary: the add, update and delete endpoints
+    // use them to check a row they are about to write, which a lagging replica may not have yet
     public Optional<BomChange> getBomChangeById(Long id) {
         return bomChangeRepository.findById(id);
     }
@@ -41,24 +129,28 @@ public class BomChangeServiceimpl {
         return bomChangeRepository.findByPartNumber(partNumber);
     }
 
+    // Writes evict the cached query results once the transaction commits (see CacheConfig)
+    @CacheEvict(cacheNames = {CacheConfig.HIGH_IMPACT_CHANGES, CacheConfig.COST_SAVINGS}, allEntries = true)
     public BomChange saveBomChange(BomChange bomChange) {
         // Ensure impact is calculated
-        if (bomChange.getImpact() == null && bomChange.getOldCost() != null && bomChange.getNewCost() != null) {
-            bomChange.setImpact(bomChange.getNewCost().subtract(bomChange.getOldCost()));
-        }
+        calculateImpact(bomChange);
         return bomChangeRepository.save(bomChange);
     }
 
+    @CacheEvict(cacheNames = {CacheConfig.HIGH_IMPACT_CHANGES, CacheConfig.COST_SAVINGS}, allEntries = true)
     public List<BomChange> saveAllBomChanges(List<BomChange> bomChanges) {
         // Calculate impact for each record if not already set
-        bomChanges.forEach(bomChange -> {
-            if (bomChange.getImpact() == null && bomChange.getOldCost() != null && bomChange.getNewCost() != null) {
-                bomChange.setImpact(bomChange.getNewCost().subtract(bomChange.getOldCost()));
-            }
-        });
-        return bomChangeRepository.saveAll(bomChanges);
+        bomChanges.forEach(BomChangeServiceimpl::calculateImpact);
+        return batchWriter.saveAll(bomChangeRepository, bomChanges);
     }
 
+    private static void calculateImpact(BomChange bomChange) {
+        if (bomChange.getImpact() == null && bomChange.getOldCost() != null && bomChange.getNewCost() != null) {
+            bomChange.setImpact(bomChange.getNewCost().subtract(bomChange.getOldCost()));
+        }
+    }
+
+    @CacheEvict(cacheNames = {CacheConfig.HIGH_IMPACT_CHANGES, CacheConfig.COST_SAVINGS}, allEntries = true)
     public void deleteBomChange(Long id) {
         bomChangeRepository.deleteById(id);
     }
@@ -68,176 +160,256 @@ public class BomChangeServiceimpl {
     }
 
     // Query methods
-    public List<BomChange> getBomChangesByStatus(BomChangeStatus status) {
-        return bomChangeRepository.findByStatus(status);
+    @Transactional(readOnly = true)
+    public List<BomChangeListItem> getBomChangesByStatus(BomChangeStatus status) {
+        return bomChangeRepository.findByStatus(status, BomChangeListItem.class);
     }
 
-    public List<BomChange> getBomChangesByDepartment(String department) {
-        return bomChangeRepository.findByDepartment(department);
+    @Transactional(readOnly = true)
+    public List<BomChangeListItem> getBomChangesByDepartment(String department) {
+        return bomChangeRepository.findByDepartment(department, BomChangeListItem.class);
     }
 
-    public List<BomChange> getBomChangesByModel(String model) {
-        return bomChangeRepository.findByModel(model);
+    @Transactional(readOnly = true)
+    public List<BomChangeListItem> getBomChangesByModel(String model) {
+        return bomChangeRepository.findByModel(model, BomChangeListItem.class);
     }
 
-    public List<BomChange> getBomChangesBySupplier(String supplier) {
-        return bomChangeRepository.findBySupplier(supplier);
+    @Transactional(readOnly = true)
+    public List<BomChangeListItem> getBomChangesBySupplier(String supplier) {
+        return bomChangeRepository.findBySupplier(supplier, BomChangeListItem.class);
     }
 
-    public List<BomChange> getBomChangesByChangeType(BomChangeType changeType) {
-        return bomChangeRepository.findByChangeType(changeType);
+    @Transactional(readOnly = true)
+    public List<BomChangeListItem> getBomChangesByChangeType(BomChangeType changeType) {
+        return bomChangeRepository.findByChangeType(changeType, BomChangeListItem.class);
     }
 
-    public List<BomChange> getBomChangesByEffectiveDateRange(LocalDate startDate, LocalDate endDate) {
-        return bomChangeRepository.findByEffectiveDateBetween(startDate, endDate);
+    @Transactional(readOnly = true)
+    public List<BomChangeListItem> getBomChangesByEffectiveDateRange(LocalDate startDate, LocalDate endDate) {
+        return bomChangeRepository.findByEffectiveDateBetween(startDate, endDate, BomChangeListItem.class);
     }
 
-    public List<BomChange> searchBomChanges(String searchTerm) {
-        return bomChangeRepository.searchBomChanges(searchTerm);
+    // Cursor pages, newest effective date first; see decodeCursor for the cursor format
+    @Transactional(readOnly = true)
+    public PageResponse<BomChangeListItem> getBomChangesPage(String cursor, int size) {
+        return page(cursor, size, (position, limit) ->
+                bomChangeRepository.findAllBy(position, limit, KEYSET_ORDER, BomChangeListItem.class));
     }
 
-    // Excel processing method
-    public List<BomChange> processExcelFile(MultipartFile file) throws IOException {
-        List<BomChange> bomChanges = new ArrayList<>();
+    @Transactional(readOnly = true)
+    public PageResponse<BomChangeListItem> getBomChangesByStatusPage(BomChangeStatus status, String cursor, int size) {
+        return page(cursor, size, (position, limit) ->
+                bomChangeRepository.findByStatus(status, position, limit, KEYSET_ORDER, BomChangeListItem.class));
+    }
 
-        try (Workbook workbook = new XSSFWorkbook(file.getInputStream())) {
-            Sheet sheet = workbook.getSheetAt(0);
-            Iterator<Row> rowIterator = sheet.iterator();
+    @Transactional(readOnly = true)
+    public PageResponse<BomChangeListItem> getBomChangesByDepartmentPage(String department, String cursor, int size) {
+        return page(cursor, size, (position, limit) ->
+                bomChangeRepository.findByDepartment(department, position, limit, KEYSET_ORDER, BomChangeListItem.class));
+    }
 
-            // Skip header row
-            if (rowIterator.hasNext()) {
-                rowIterator.next();
-            }
+    @Transactional(readOnly = true)
+    public PageResponse<BomChangeListItem> getBomChangesByModelPage(String model, String cursor, int size) {
+        return page(cursor, size, (position, limit) ->
+                bomChangeRepository.findByModel(model, position, limit, KEYSET_ORDER, BomChangeListItem.class));
+    }
 
-            while (rowIterator.hasNext()) {
-                Row row = rowIterator.next();
-                try {
-                    BomChange bomChange = createBomChangeFromRow(row);
-                    if (bomChange != null) {
-                        bomChanges.add(bomChange);
-                    }
-                } catch (Exception e) {
-                    // Log error for this row and continue
-                    System.err.println("Error processing row " + row.getRowNum() + ": " + e.getMessage());
-                }
-            }
-        }
+    @Transactional(readOnly = true)
+    public PageResponse<BomChangeListItem> getBomChangesBySupplierPage(String supplier, String cursor, int size) {
+        return page(cursor, size, (position, limit) ->
+                bomChangeRepository.findBySupplier(supplier, position, limit, KEYSET_ORDER, BomChangeListItem.class));
+    }
 
-        return bomChanges;
+    @Transactional(readOnly = true)
+    public PageResponse<BomChangeListItem> getBomChangesByEffectiveDateRangePage(LocalDate startDate, LocalDate endDate,
+                                                                         String cursor, int size) {
+        return page(cursor, size, (position, limit) ->
+                bomChangeRepository.findByEffectiveDateBetween(startDate, endDate, position, limit, KEYSET_ORDER,
+                        BomChangeListItem.class));
     }
 
-    private BomChange createBomChangeFromRow(Row row) {
-        try {
-            BomChange bomChange = new BomChange();
-
-            // Expected column order based on your frontend:
-            // Model, Part Name, Part Number, Old Cost, New Cost, Supplier, Effective Date,
-            // Change Type, Status, Department, Remarks
-
-            bomChange.setModel(getCellValueAsString(row.getCell(0)));
-            bomChange.setPartName(getCellValueAsString(row.getCell(1)));
-            bomChange.setPartNumber(getCellValueAsString(row.getCell(2)));
-            bomChange.setOldCost(getCellValueAsBigDecimal(row.getCell(3)));
-            bomChange.setNewCost(getCellValueAsBigDecimal(row.getCell(4)));
-            bomChange.setSupplier(getCellValueAsString(row.getCell(5)));
-            bomChange.setEffectiveDate(getCellValueAsLocalDate(row.getCell(6)));
-            bomChange.setChangeType(getCellValueAsChangeType(row.getCell(7)));
-            bomChange.setStatus(getCellValueAsStatus(row.getCell(8)));
-            bomChange.setDepartment(getCellValueAsString(row.getCell(9)));
-            bomChange.setRemarks(getCellValueAsString(row.getCell(10)));
-
-            // Calculate impact
-            if (bomChange.getOldCost() != null && bomChange.getNewCost() != null) {
-                bomChange.setImpact(bomChange.getNewCost().subtract(bomChange.getOldCost()));
-            }
+    private PageResponse<BomChangeListItem> page(String cursor, int size,
+                                                 BiFunction<ScrollPosition, Limit, Window<BomChangeListItem>> query) {
+        Window<BomChangeListItem> window = query.apply(decodeCursor(cursor), Limit.of(size));
+        String nextCursor = window.hasNext() ? encodeCursor(window.getContent().get(window.size() - 1)) : null;
+        return new PageResponse<>(window.getContent(), size, nextCursor);
+    }
 
-            return bomChange;
-        } catch (Exception e) {
-            throw new RuntimeException("Error creating BomChange from row: " + e.getMessage());
-        }
+    // The cursor is the (effective date, id) of the last row on the previous page, Base64url encoded
+    private static String encodeCursor(BomChangeListItem last) {
+        String key = last.effectiveDate() + "|" + last.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
     }
 
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) return "";
-
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue().trim();
-            case NUMERIC:
-                return String.valueOf((long) cell.getNumericCellValue());
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
-                return "";
+    private static ScrollPosition decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return ScrollPosition.keyset();
+        }
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            Map<String, Object> keys = new LinkedHashMap<>();
+            keys.put("effectiveDate", LocalDate.parse(key[0]));
+            keys.put("id", Long.parseLong(key[1]));
+            return ScrollPosition.forward(keys);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
         }
     }
 
-    private BigDecimal getCellValueAsBigDecimal(Cell cell) {
-        if (cell == null) return BigDecimal.ZERO;
+    // Any combination of criteria as one parameterized query, returned as an offset page with totals.
+    // sort is "field" or "field,asc|desc"; the default is newest effective date first.
+    @Transactional(readOnly = true)
+    public PageResponse<BomChangeListItem> filterBomChanges(BomChangeFilter filter, int page, int size, String sort) {
+        Page<BomChangeListItem> result = bomChangeRepository.findBy(BomChangeSpecifications.matching(filter),
+                query -> query.as(BomChangeListItem.class).page(PageRequest.of(page, size, filterSort(sort))));
+        return new PageResponse<>(result.getContent(), result.getNumber(), result.getSize(),
+                result.getTotalElements(), result.getTotalPages(), result.isLast());
+    }
+
+    // Excel export of the rows /filter would page through, in the same order. The sort is checked
+    // here, before the response starts; the returned query runs later, inside the export's transaction
+    public Supplier<Stream<BomChangeListItem>> exportBomChanges(BomChangeFilter filter, String sort) {
+        Sort order = filterSort(sort);
+        return () -> bomChangeRepository.streamListItems(BomChangeSpecifications.matching(filter), order);
+    }
 
-        switch (cell.getCellType()) {
-            case NUMERIC:
-                return BigDecimal.valueOf(cell.getNumericCellValue());
-            case STRING:
-                try {
-                    return new BigDecimal(cell.getStringCellValue().replaceAll("[^\\d.-]", ""));
-                } catch (NumberFormatException e) {
-                    return BigDecimal.ZERO;
-                }
-            default:
-                return BigDecimal.ZERO;
+    private static Sort filterSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return KEYSET_ORDER;
+        }
+        String[] parts = sort.split(",");
+        String field = parts[0].trim();
+        Optional<Sort.Direction> direction = parts.length == 1
+                ? Optional.of(Sort.Direction.ASC)
+                : Sort.Direction.fromOptionalString(parts[1].trim());
+        if (parts.length > 2 || !FILTER_SORT_FIELDS.contains(field) || direction.isEmpty()) {
+            throw new IllegalArgumentException("Invalid sort: " + sort + ". Use field or field,asc|desc with one of: "
+                    + String.join(", ", FILTER_SORT_FIELDS));
         }
+        return Sort.by(direction.get(), field, "id");
     }
 
-    private LocalDate getCellValueAsLocalDate(Cell cell) {
-        if (cell == null) return LocalDate.now();
+    // The ranking query is native and returns entities, at most one page of them
+    @Transactional(readOnly = true)
+    public List<BomChangeListItem> searchBomChanges(String searchTerm, int limit) {
+        return bomChangeRepository.searchBomChanges(searchTerm, limit).stream().map(BomChangeListItem::of).toList();
+    }
+
+    // Excel import: parse, convert and save run as overlapping stages (see ImportPipeline).
+    // Each batch commits on its own so a long-running import job never holds one huge transaction.
+    // Imports evict cached query results when they finish; rows committed by an import that fails
+    // part-way show up in them once the cache TTL expires.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @CacheEvict(cacheNames = {CacheConfig.HIGH_IMPACT_CHANGES, CacheConfig.COST_SAVINGS}, allEntries = true)
+    public void importExcelFile(Path file, ImportSummary summary) throws Exception {
+        importPipeline.run(file, rowMapper::map, batch -> saveAllBomChanges(batch).size(), summary);
+    }
 
-        switch (cell.getCellType()) {
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toInstant()
-                            .atZone(ZoneId.systemDefault())
-                            .toLocalDate();
+    // COPY import: bypasses JPA and streams validated rows straight into bom_changebox.
+    // Runs outside the class-level transaction; the single COPY statement is atomic on its own.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @CacheEvict(cacheNames = {CacheConfig.HIGH_IMPACT_CHANGES, CacheConfig.COST_SAVINGS}, allEntries = true)
+    public void copyExcelFile(Path file, ImportSummary summary) throws Exception {
+        try (PgCopyLoader.CopySession copy = copyLoader.open("bom_changebox", "bom_changebox_seq", INSERT_COLUMNS)) {
+            importPipeline.run(file, rowMapper::map, new ImportPipeline.BatchSink<>() {
+                @Override
+                public long write(List<BomChange> batch) {
+                    for (BomChange bomChange : batch) {
+                        copy.writeRow(toColumnValues(bomChange));
+                    }
+                    // rows only count as saved once the COPY completes
+                    return 0;
                 }
-                break;
-            case STRING:
-                try {
-                    return LocalDate.parse(cell.getStringCellValue());
-                } catch (Exception e) {
-                    return LocalDate.now();
+
+                @Override
+                public long finish() {
+                    return copy.finish();
                 }
+            }, summary);
         }
-        return LocalDate.now();
     }
 
-    private BomChangeType getCellValueAsChangeType(Cell cell) {
-        if (cell == null) return BomChangeType.NEW_PART;
+    // Merge import: re-uploading a corrected workbook updates matching rows instead of duplicating them.
+    // Each batch is a single INSERT ... ON CONFLICT DO UPDATE statement. Rows are merged in sheet order,
+    // so the last of two rows for the same part, model and date wins; rows without a valid date are rejected.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @CacheEvict(cacheNames = {CacheConfig.HIGH_IMPACT_CHANGES, CacheConfig.COST_SAVINGS}, allEntries = true)
+    public void mergeExcelFile(Path file, ImportSummary summary) throws Exception {
+        importPipeline.runInOrder(file, rowMapper::mapForMerge, mergeSink(summary), summary);
+    }
 
-        String value = getCellValueAsString(cell).toUpperCase();
-        try {
-            return BomChangeType.valueOf(value);
-        } catch (IllegalArgumentException e) {
-            // Default fallback
-            return BomChangeType.NEW_PART;
+    // Streaming ingest of an NDJSON body (one BomChange object per line), committed in chunks.
+    // Records are only ever inserted or merged on their key, never written by id: a record carrying an id
+    // is rejected when appending (saving it would overwrite that row) and has it ignored when merging.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @CacheEvict(cacheNames = {CacheConfig.HIGH_IMPACT_CHANGES, CacheConfig.COST_SAVINGS}, allEntries = true)
+    public void ingestNdjson(InputStream body, boolean merge, ImportSummary summary) throws IOException {
+        recordIngester.ingestNdjson(body, BomChange.class, bomChange -> prepareIngested(bomChange, merge),
+                merge ? mergeSink(summary) : batch -> saveAllBomChanges(batch).size(), summary);
+    }
+
+    private static void prepareIngested(BomChange bomChange, boolean merge) {
+        if (bomChange.getId() != null) {
+            if (!merge) {
+                throw new IllegalArgumentException("id: must not be set; update existing changes with PUT /api/bom-changes/"
+                        + bomChange.getId() + " or ingest with mode=merge");
+            }
+            bomChange.setId(null);
         }
+        calculateImpact(bomChange);
     }
 
-    private BomChangeStatus getCellValueAsStatus(Cell cell) {
-        if (cell == null) return BomChangeStatus.PENDING;
+    // Streaming ingest of a CSV body with the Excel template's columns, committed in chunks
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @CacheEvict(cacheNames = {CacheConfig.HIGH_IMPACT_CHANGES, CacheConfig.COST_SAVINGS}, allEntries = true)
+    public void ingestCsv(InputStream body, boolean merge, ImportSummary summary) throws IOException {
+        recordIngester.ingestCsv(body, merge ? rowMapper::mapForMerge : rowMapper::map,
+                merge ? mergeSink(summary) : batch -> saveAllBomChanges(batch).size(), summary);
+    }
 
-        String value = getCellValueAsString(cell).toUpperCase();
-        try {
-            return BomChangeStatus.valueOf(value);
-        } catch (IllegalArgumentException e) {
-            // Default fallback
-            return BomChangeStatus.PENDING;
-        }
+    private ImportPipeline.BatchSink<BomChange> mergeSink(ImportSummary summary) {
+        LongSupplier ids = idAllocator.idSource("bom_changebox_seq");
+        return batch -> {
+            PgUpsertWriter.MergeCounts counts = upsertWriter.upsert(MERGE_TARGET, batch, ids);
+            summary.rowsMerged(counts.inserted(), counts.updated(), counts.unchanged());
+            return counts.inserted() + counts.updated();
+        };
     }
 
-    // Summary methods
+    // Values in INSERT_COLUMNS order
+    private static Object[] toColumnValues(BomChange bomChange) {
+        return new Object[]{bomChange.getModel(), bomChange.getPartName(), bomChange.getPartNumber(),
+                bomChange.getOldCost(), bomChange.getNewCost(), bomChange.getImpact(),
+                bomChange.getSupplier(), bomChange.getEffectiveDate(), bomChange.getChangeType(),
+                bomChange.getStatus(), bomChange.getDepartment(), bomChange.getRemarks(),
+                bomChange.getDocument(), bomChange.getQuantity()};
+    }
+
+    // Summary methods. Served from the in-memory analytics copy without a transaction or connection;
+    // the database rollup answers only until the copy has loaded after startup.
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Map<String, Object> getModelSummary() {
+        return analytics.modelSummary().orElseGet(this::getRollupModelSummary);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Object> getChangeTypeSummary() {
+        return analytics.changeTypeSummary().orElseGet(this::getRollupChangeTypeSummary);
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Object> getStatistics() {
+        return analytics.statistics().orElseGet(this::getRollupStatistics);
+    }
+
+    // Monthly change count and impact for the rows matching the filter; empty until the analytics copy has loaded
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<List<Map<String, Object>>> getTrend(BomChangeFilter filter) {
+        return analytics.trend(filter);
+    }
+
+    private Map<String, Object> getRollupModelSummary() {
         List<Object[]> results = bomChangeRepository.getSummaryByModel();
         Map<String, Object> summary = new HashMap<>();
 
@@ -251,7 +423,7 @@ public class BomChangeServiceimpl {
         return summary;
     }
 
-    public Map<String, Object> getChangeTypeSummary() {
+    private Map<String, Object> getRollupChangeTypeSummary() {
         List<Object[]> results = bomChangeRepository.getSummaryByChangeType();
         Map<String, Object> summary = new HashMap<>();
 
@@ -265,11 +437,67 @@ public class BomChangeServiceimpl {
         return summary;
     }
 
-    public List<BomChange> getHighImpactChanges(Double threshold) {
-        return bomChangeRepository.findByImpactGreaterThan(threshold);
+    // Aggregated in the database; rows without an impact are left out of the impact sum and average
+    private Map<String, Object> getRollupStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        Map<String, Long> statusBreakdown = new HashMap<>();
+        Map<String, Long> typeBreakdown = new HashMap<>();
+
+        for (Object[] row : bomChangeRepository.getStatistics()) {
+            long count = ((Number) row[3]).longValue();
+            if ((Boolean) row[0]) {
+                statusBreakdown.put((String) row[2], count);
+            } else if ((Boolean) row[1]) {
+                typeBreakdown.put((String) row[2], count);
+            } else {
+                stats.put("totalChanges", count);
+                stats.put("totalImpact", ((Number) row[4]).doubleValue());
+                stats.put("averageImpact", ((Number) row[5]).doubleValue());
+            }
+        }
+
+        stats.put("statusBreakdown", statusBreakdown);
+        stats.put("changeTypeBreakdown", typeBreakdown);
+        return stats;
+    }
+
+    // Repair for the summary rollup; writes to bom_changebox wait until it finishes
+    public long rebuildRollup() {
+        return bomChangeRepository.rebuildRollup();
+    }
+
+    // Cached per threshold; the lists are immutable because every caller shares them.
+    // Read on the primary: a result read from a lagging replica right after a write's eviction
+    // would be cached stale for the whole TTL
+    @Cacheable(CacheConfig.HIGH_IMPACT_CHANGES)
+    public List<BomChangeListItem> getHighImpactChanges(Double threshold) {
+        return List.copyOf(bomChangeRepository.findListItemsByImpactGreaterThan(threshold));
+    }
+
+    @Cacheable(CacheConfig.COST_SAVINGS)
+    public List<BomChangeListItem> getCostSavings(Double threshold) {
+        return List.copyOf(bomChangeRepository.findListItemsByImpactLessThan(threshold));
     }
 
-    public List<BomChange> getCostSavings(Double threshold) {
-        return bomChangeRepository.findByImpactLessThan(threshold);
+    // Hit, miss and eviction counts of each cache since startup; evictions are size- and TTL-based,
+    // invalidations after writes are not counted
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<String, Object> getCacheStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        for (String name : CacheConfig.BOM_CHANGE_CACHES) {
+            TransactionAwareCacheDecorator cache = (TransactionAwareCacheDecorator) cacheManager.getCache(name);
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache =
+                    ((CaffeineCache) cache.getTargetCache()).getNativeCache();
+            CacheStats stats = nativeCache.stats();
+            Map<String, Object> cacheData = new LinkedHashMap<>();
+            cacheData.put("entries", nativeCache.estimatedSize());
+            cacheData.put("hits", stats.hitCount());
+            cacheData.put("misses", stats.missCount());
+            cacheData.put("hitRate", stats.hitRate());
+            cacheData.put("evictions", stats.evictionCount());
+            cacheData.put("evictedRows", stats.evictionWeight());
+            statistics.put(name, cacheData);
+        }
+        return statistics;
     }
 }
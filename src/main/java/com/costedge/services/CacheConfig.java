@@ -0,0 +1,50 @@
+package com.costedge.services;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * In-process caches for query results that are expensive to recompute but change rarely.
+ *
+ * <p>Each cache is bounded by the number of rows it holds (a cached list weighs its size) and by
+ * time since the entry was written; the TTL also covers writes made outside the evicting service
+ * methods, such as plain SQL. The manager is transaction-aware: an eviction requested inside a
+ * transaction is applied only after it commits, when other requests can see the new rows, and a
+ * rolled-back write evicts nothing.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String HIGH_IMPACT_CHANGES = "highImpactChanges";
+    public static final String COST_SAVINGS = "costSavings";
+    public static final String MILESTONE_ROLLUP = "milestoneRollup";
+
+    // Every cache written by BomChangeServiceimpl; its writes evict all of them
+    public static final List<String> BOM_CHANGE_CACHES = List.of(HIGH_IMPACT_CHANGES, COST_SAVINGS);
+
+    @Bean
+    public CacheManager cacheManager(@Value("${costedge.cache.max-rows:200000}") long maxRows,
+                                     @Value("${costedge.cache.ttl:PT10M}") Duration ttl) {
+        CaffeineCacheManager caffeine = new CaffeineCacheManager();
+        caffeine.setCaffeine(Caffeine.newBuilder()
+                .maximumWeight(maxRows)
+                .weigher((Object key, Object value) -> value instanceof Collection<?> rows ? Math.max(1, rows.size()) : 1)
+                .expireAfterWrite(ttl)
+                .recordStats());
+        // Fixed set of caches, so a misspelt cache name fails instead of creating an unbounded one
+        caffeine.setCacheNames(List.of(HIGH_IMPACT_CHANGES, COST_SAVINGS, MILESTONE_ROLLUP));
+        caffeine.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(caffeine);
+    }
+}
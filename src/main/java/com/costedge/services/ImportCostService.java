@@ -1,17 +1,35 @@
 package com.costedge.services;
 
+import com.costedge.model.DTO.ImportCostListItem;
+import com.costedge.model.DTO.ImportSummary;
 import com.costedge.model.ImportCost;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ImportCostService {
 
-    List<ImportCost> getAllImportCosts();
+    // List view rows, without document links and timestamps
+    List<ImportCostListItem> getAllImportCosts();
+
+    // Caller must consume and close the stream inside a transaction
+    Stream<ImportCost> streamAllImportCosts();
+
+    // List view rows in list order, for the Excel export; same transaction rule as streamAllImportCosts
+    Stream<ImportCostListItem> streamImportCostListItems();
 
     List<ImportCost> saveAllImportCosts(List<ImportCost> importCosts);
 
-    List<ImportCost> processExcelFile(MultipartFile file) throws Exception;
+    void importExcelFile(Path file, ImportSummary summary) throws Exception;
+
+    void copyExcelFile(Path file, ImportSummary summary) throws Exception;
+
+    void ingestNdjson(InputStream body, ImportSummary summary) throws IOException;
+
+    void ingestCsv(InputStream body, ImportSummary summary) throws IOException;
 
     List<ImportCost> findBySupplier(String supplier);
 }
@@ -1,42 +1,167 @@
 package com.costedge.services;
 
+import com.costedge.model.DTO.ImportCostListItem;
+import com.costedge.model.DTO.ImportSummary;
 import com.costedge.model.ImportCost;
 import com.costedge.repository.ImportCostRepository;
+import com.costedge.services.imports.ImportCostRowMapper;
+import com.costedge.services.imports.ImportPipeline;
+import com.costedge.services.imports.PgCopyLoader;
+import com.costedge.services.imports.PgUpsertWriter;
+import com.costedge.services.imports.RecordStreamIngester;
+import com.costedge.services.imports.SequenceIdAllocator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
 
 @Service
 public class ImportCostServiceimpl implements ImportCostService {
 
+    // import_costs columns written by COPY and merge imports (id is allocated separately)
+    private static final List<String> INSERT_COLUMNS = List.of(
+            "shipment_id", "date", "supplier", "model", "part_name", "quantity",
+            "freight", "duty", "insurance", "document", "created_at", "updated_at");
+
+    // Merge on the unique shipment_id; created_at and an existing document link are kept,
+    // updated_at only moves when a value changed
+    private static final PgUpsertWriter.Target<ImportCost> MERGE_TARGET = new PgUpsertWriter.Target<>(
+            "import_costs", INSERT_COLUMNS,
+            List.of("shipment_id"),
+            List.of("date", "supplier", "model", "part_name", "quantity", "freight", "duty", "insurance"),
+            "updated_at",
+            ImportCostServiceimpl::toColumnValues,
+            cost -> List.of(cost.getShipmentId()));
+
     private final ImportCostRepository importCostRepository;
+    private final JpaBatchWriter batchWriter;
+    private final ImportPipeline importPipeline;
+    private final ImportCostRowMapper rowMapper;
+    private final PgCopyLoader copyLoader;
+    private final PgUpsertWriter upsertWriter;
+    private final SequenceIdAllocator idAllocator;
+    private final RecordStreamIngester recordIngester;
 
     @Autowired
-    public ImportCostServiceimpl(ImportCostRepository importCostRepository) {
+    public ImportCostServiceimpl(ImportCostRepository importCostRepository,
+                                 JpaBatchWriter batchWriter,
+                                 ImportPipeline importPipeline,
+                                 ImportCostRowMapper rowMapper,
+                                 PgCopyLoader copyLoader,
+                                 PgUpsertWriter upsertWriter,
+                                 SequenceIdAllocator idAllocator,
+                                 RecordStreamIngester recordIngester) {
         this.importCostRepository = importCostRepository;
+        this.batchWriter = batchWriter;
+        this.importPipeline = importPipeline;
+        this.rowMapper = rowMapper;
+        this.copyLoader = copyLoader;
+        this.upsertWriter = upsertWriter;
+        this.idAllocator = idAllocator;
+        this.recordIngester = recordIngester;
     }
 
+    // Read-only transactions go to the read replica when one is configured
     @Override
-    public List<ImportCost> getAllImportCosts() {
-        return importCostRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<ImportCostListItem> getAllImportCosts() {
+        // Fixed order, so an unchanged table always gives the same body for its ETag
+        return importCostRepository.findAllListItems();
+    }
+
+    @Override
+    public Stream<ImportCost> streamAllImportCosts() {
+        return importCostRepository.streamAllByOrderByIdAsc();
+    }
+
+    @Override
+    public Stream<ImportCostListItem> streamImportCostListItems() {
+        return importCostRepository.streamListItems();
     }
 
     @Override
     public List<ImportCost> saveAllImportCosts(List<ImportCost> importCosts) {
-        return importCostRepository.saveAll(importCosts);
+        return batchWriter.saveAll(importCostRepository, importCosts);
+    }
+
+    // Excel import: streams the sheet through the import pipeline and merges each batch on shipment_id,
+    // so a re-sent broker file updates the existing shipments instead of failing on the unique constraint.
+    // Rows that fail conversion are reported in the summary and the rest of the sheet is still imported.
+    @Override
+    public void importExcelFile(Path file, ImportSummary summary) throws Exception {
+        importPipeline.runInOrder(file, rowMapper::map, mergeSink(summary), summary);
     }
 
+    // Streaming ingest of an NDJSON body (one ImportCost object per line), merged on shipment_id in chunks
     @Override
-    public List<ImportCost> processExcelFile(MultipartFile file) throws Exception {
-        // Your logic to read the Excel file (e.g., using Apache POI) and convert it to a List<ImportCost> goes here.
-        // This is a placeholder.
-        System.out.println("Processing import cost Excel file: " + file.getOriginalFilename());
-        return List.of(); // Return an empty list for now
+    public void ingestNdjson(InputStream body, ImportSummary summary) throws IOException {
+        recordIngester.ingestNdjson(body, ImportCost.class, cost -> {}, mergeSink(summary), summary);
+    }
+
+    // Streaming ingest of a CSV body with the Excel template's columns, merged on shipment_id in chunks
+    @Override
+    public void ingestCsv(InputStream body, ImportSummary summary) throws IOException {
+        recordIngester.ingestCsv(body, rowMapper::map, mergeSink(summary), summary);
+    }
+
+    private ImportPipeline.BatchSink<ImportCost> mergeSink(ImportSummary summary) {
+        LongSupplier ids = idAllocator.idSource("import_costs_seq");
+        LocalDateTime now = LocalDateTime.now();
+        return batch -> {
+            List<ImportCost> stamped = batch.stream().map(cost -> stamp(cost, now)).toList();
+            PgUpsertWriter.MergeCounts counts = upsertWriter.upsert(MERGE_TARGET, stamped, ids);
+            summary.rowsMerged(counts.inserted(), counts.updated(), counts.unchanged());
+            return counts.inserted() + counts.updated();
+        };
+    }
+
+    // COPY import: fastest path for initial loads; fails as a whole if a shipment_id already exists
+    @Override
+    public void copyExcelFile(Path file, ImportSummary summary) throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+
+        try (PgCopyLoader.CopySession copy = copyLoader.open("import_costs", "import_costs_seq", INSERT_COLUMNS)) {
+            importPipeline.run(file, rowMapper::map, new ImportPipeline.BatchSink<>() {
+                @Override
+                public long write(List<ImportCost> batch) {
+                    for (ImportCost cost : batch) {
+                        copy.writeRow(toColumnValues(stamp(cost, now)));
+                    }
+                    // rows only count as saved once the COPY completes
+                    return 0;
+                }
+
+                @Override
+                public long finish() {
+                    return copy.finish();
+                }
+            }, summary);
+        }
+    }
+
+    // Bulk writes bypass @PrePersist, so the timestamps are set here
+    private static ImportCost stamp(ImportCost cost, LocalDateTime now) {
+        cost.setCreatedAt(now);
+        cost.setUpdatedAt(now);
+        return cost;
+    }
+
+    // Values in INSERT_COLUMNS order
+    private static Object[] toColumnValues(ImportCost cost) {
+        return new Object[]{cost.getShipmentId(), cost.getDate(), cost.getSupplier(), cost.getModel(),
+                cost.getPartName(), cost.getQuantity(), cost.getFreight(), cost.getDuty(),
+                cost.getInsurance(), cost.getDocument(), cost.getCreatedAt(), cost.getUpdatedAt()};
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<ImportCost> findBySupplier(String supplier) {
         return importCostRepository.findBySupplier(supplier);
     }
@@ -0,0 +1,45 @@
+package com.costedge.services;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Saves large entity lists in JDBC batches. The persistence context is flushed and cleared
+ * every batch so it does not grow with the number of rows; returned entities are detached.
+ */
+@Component
+public class JpaBatchWriter {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Keep in line with spring.jpa.properties.hibernate.jdbc.batch_size
+    @Value("${costedge.persistence.batch-size:500}")
+    private int batchSize;
+
+    @Transactional
+    public <T> List<T> saveAll(JpaRepository<T, ?> repository, List<T> entities) {
+        List<T> saved = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            saved.add(repository.save(entity));
+            if (saved.size() % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return saved;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+}
@@ -1,15 +1,25 @@
 package com.costedge.service;
 
+import com.costedge.model.DTO.MilestoneListItem;
+import com.costedge.model.DTO.MilestoneRollup;
 import com.costedge.model.ProjectMilestoneCost;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ProjectMilestoneCostService {
     ProjectMilestoneCost save(ProjectMilestoneCost cost);
-    List<ProjectMilestoneCost> getAll();
+    // Lists return grid rows (MilestoneListItem); getById returns the full record
+    List<MilestoneListItem> getAll();
+    // Caller must consume and close the stream inside a transaction
+    Stream<ProjectMilestoneCost> streamAll();
+    // Grid rows for the Excel export; null criteria are not applied. Same transaction rule as streamAll
+    Stream<MilestoneListItem> streamListItems(Integer projectID, String projectName, String approvalStatus);
     Optional<ProjectMilestoneCost> getById(Long id);
-    List<ProjectMilestoneCost> getByProjectID(Integer projectID);
-    List<ProjectMilestoneCost> getByProjectName(String projectName);
-    List<ProjectMilestoneCost> getByApprovalStatus(String status);
+    List<MilestoneListItem> getByProjectID(Integer projectID);
+    List<MilestoneListItem> getByProjectName(String projectName);
+    List<MilestoneListItem> getByApprovalStatus(String status);
+    // Totals per project, department and category; cached until the next write through this service
+    MilestoneRollup getRollup();
     void deleteById(Long id);
 }
@@ -1,12 +1,21 @@
 package com.costedge.service.impl;
 
+import com.costedge.model.DTO.MilestoneListItem;
+import com.costedge.model.DTO.MilestoneRollup;
 import com.costedge.model.ProjectMilestoneCost;
 import com.costedge.repository.ProjectMilestoneCostRepository;
 import com.costedge.service.ProjectMilestoneCostService;
+import com.costedge.services.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class ProjectMilestoneCostServiceImpl implements ProjectMilestoneCostService {
@@ -17,37 +26,86 @@ public class ProjectMilestoneCostServiceImpl implements ProjectMilestoneCostServ
         this.repository = repository;
     }
 
+    // Writes evict the cached rollup once the transaction commits (see CacheConfig)
     @Override
+    @CacheEvict(cacheNames = CacheConfig.MILESTONE_ROLLUP, allEntries = true)
     public ProjectMilestoneCost save(ProjectMilestoneCost cost) {
         return repository.save(cost);
     }
 
+    // Grid reads are read-only transactions, which go to the read replica when one is configured
     @Override
-    public List<ProjectMilestoneCost> getAll() {
-        return repository.findAll();
+    @Transactional(readOnly = true)
+    public List<MilestoneListItem> getAll() {
+        // Fixed order, so an unchanged table always gives the same body for its ETag
+        return repository.findAllListItems();
     }
 
     @Override
+    public Stream<ProjectMilestoneCost> streamAll() {
+        return repository.streamAllByOrderByIdAsc();
+    }
+
+    @Override
+    public Stream<MilestoneListItem> streamListItems(Integer projectID, String projectName, String approvalStatus) {
+        return repository.streamListItems(projectID, projectName, approvalStatus);
+    }
+
+    // A read-write transaction keeps this on the primary (the repository's own default is read-only):
+    // the update and approval endpoints load the row here and save it back
+    @Override
+    @Transactional
     public Optional<ProjectMilestoneCost> getById(Long id) {
         return repository.findById(id);
     }
 
     @Override
-    public List<ProjectMilestoneCost> getByProjectID(Integer projectID) {
-        return repository.findByProjectID(projectID);
+    @Transactional(readOnly = true)
+    public List<MilestoneListItem> getByProjectID(Integer projectID) {
+        return repository.findListItemsByProjectID(projectID);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MilestoneListItem> getByProjectName(String projectName) {
+        return repository.findListItemsByProjectName(projectName);
     }
 
     @Override
-    public List<ProjectMilestoneCost> getByProjectName(String projectName) {
-        return repository.findByProjectName(projectName);
+    @Transactional(readOnly = true)
+    public List<MilestoneListItem> getByApprovalStatus(String status) {
+        return repository.findListItemsByApprovalStatus(status);
     }
 
+    // Read on the primary, like the cached BOM change queries: a rollup read from a lagging replica
+    // right after a write's eviction would be cached stale for the whole TTL
     @Override
-    public List<ProjectMilestoneCost> getByApprovalStatus(String status) {
-        return repository.findByApprovalStatus(status);
+    @Transactional
+    @Cacheable(CacheConfig.MILESTONE_ROLLUP)
+    public MilestoneRollup getRollup() {
+        List<MilestoneRollup.Line> projects = new ArrayList<>();
+        List<MilestoneRollup.Line> departments = new ArrayList<>();
+        List<MilestoneRollup.Line> categories = new ArrayList<>();
+        for (Object[] row : repository.getRollup()) {
+            MilestoneRollup.Line line = new MilestoneRollup.Line(
+                    (Integer) row[2], (String) row[3], (String) row[4], (String) row[5], (String) row[6],
+                    ((Number) row[7]).longValue(), (BigDecimal) row[8], (BigDecimal) row[9], (BigDecimal) row[10],
+                    ((Number) row[11]).longValue(), ((Number) row[12]).longValue(),
+                    (BigDecimal) row[13], (BigDecimal) row[14]);
+            if ((Boolean) row[0]) {
+                projects.add(line);
+            } else if ((Boolean) row[1]) {
+                departments.add(line);
+            } else {
+                categories.add(line);
+            }
+        }
+        // Immutable, since every caller shares the cached value
+        return new MilestoneRollup(List.copyOf(projects), List.copyOf(departments), List.copyOf(categories));
     }
 
     @Override
+    @CacheEvict(cacheNames = CacheConfig.MILESTONE_ROLLUP, allEntries = true)
     public void deleteById(Long id) {
         repository.deleteById(id);
     }
@@ -0,0 +1,325 @@
+package com.costedge.services.analytics;
+
+import com.costedge.model.DTO.BomChangeFilter;
+import com.costedge.services.analytics.BomChangeColumns.Dimension;
+import com.costedge.services.analytics.BomChangeColumns.Groups;
+import com.costedge.services.analytics.BomChangeColumns.Row;
+import com.costedge.services.analytics.BomChangeColumns.Slice;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the BOM change summaries, stats and monthly trends from an in-memory columnar copy of
+ * bom_changebox ({@link BomChangeColumns}) instead of querying Postgres.
+ *
+ * <p>The copy is loaded once the application is ready and then kept current by a background thread:
+ * triggers record the id of every written row in bom_change_log (V5__bom_change_log.sql), and each
+ * refresh re-reads only those rows and patches them in. Writes from any instance, import path or SQL
+ * session show up within {@code costedge.analytics.refresh-interval}. Until the first load finishes
+ * every method returns empty and callers fall back to the database rollup.
+ */
+@Service
+public class BomChangeAnalytics {
+
+    private static final Logger log = LoggerFactory.getLogger(BomChangeAnalytics.class);
+
+    private static final String SNAPSHOT_XMIN = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text";
+
+    private static final String LOAD_ROWS = "SELECT id, model, supplier, department, status, change_type, " +
+            "effective_date, impact FROM bom_changebox ORDER BY id";
+
+    // Every id written by a transaction at or after the last snapshot's xmin, with its current row;
+    // a null row means it was deleted and a null id a TRUNCATE (sorted first, so it is seen at once)
+    private static final String CHANGED_ROWS = "SELECT l.id, b.model, b.supplier, b.department, b.status, " +
+            "b.change_type, b.effective_date, b.impact " +
+            "FROM (SELECT DISTINCT bom_change_id AS id FROM bom_change_log WHERE txid >= ?::text::xid8) l " +
+            "LEFT JOIN bom_changebox b ON b.id = l.id ORDER BY l.id NULLS FIRST";
+
+    // Only entries this instance has already read (below its watermark) and older than the retention
+    private static final String PRUNE_LOG = "DELETE FROM bom_change_log " +
+            "WHERE logged_at < now() - make_interval(secs => ?) AND txid < ?::text::xid8";
+
+    private static final Duration PRUNE_EVERY = Duration.ofMinutes(1);
+
+    // While refreshes keep failing, how often that is logged above debug level
+    private static final Duration FAILURE_LOG_EVERY = Duration.ofMinutes(1);
+
+    /** A loaded copy and the xmin of the database snapshot it reflects. */
+    private record Snapshot(BomChangeColumns columns, String xmin, Instant syncedAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final Duration refreshInterval;
+    private final Duration logRetention;
+    private final ScheduledExecutorService scheduler;
+    private volatile Snapshot snapshot;
+    private Instant lastPrune = Instant.EPOCH;
+    // Refresh thread only: consecutive failed refreshes and when that was last logged
+    private int failures;
+    private Instant lastFailureLog = Instant.EPOCH;
+
+    public BomChangeAnalytics(DataSource dataSource,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${costedge.analytics.refresh-interval:PT1S}") Duration refreshInterval,
+                              @Value("${costedge.analytics.log-retention:PT1H}") Duration logRetention) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(10_000);
+        // One consistent snapshot for the xmin and the rows read under it
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.refreshInterval = refreshInterval;
+        this.logRetention = logRetention;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "bom-analytics");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::refresh, 0, refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /** Change count and impact per model, as in the rollup summary. */
+    public Optional<Map<String, Object>> modelSummary() {
+        return columns().map(columns -> summary(columns, Dimension.MODEL));
+    }
+
+    /** Change count and impact per change type, as in the rollup summary. */
+    public Optional<Map<String, Object>> changeTypeSummary() {
+        return columns().map(columns -> summary(columns, Dimension.CHANGE_TYPE));
+    }
+
+    /** Totals plus status and change type breakdowns; rows without an impact are left out of the impact figures. */
+    public Optional<Map<String, Object>> statistics() {
+        return columns().map(columns -> {
+            Groups total = columns.total(Slice.ALL);
+            long impactCount = total.impactCount()[0];
+            BigDecimal totalImpact = BigDecimal.valueOf(total.impactCents()[0], 2);
+
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("totalChanges", total.count()[0]);
+            stats.put("totalImpact", totalImpact.doubleValue());
+            stats.put("averageImpact", impactCount == 0 ? 0.0
+                    : totalImpact.divide(BigDecimal.valueOf(impactCount), MathContext.DECIMAL64).doubleValue());
+            stats.put("statusBreakdown", counts(columns, Dimension.STATUS));
+            stats.put("changeTypeBreakdown", counts(columns, Dimension.CHANGE_TYPE));
+            return stats;
+        });
+    }
+
+    /**
+     * Change count and impact per effective-date month ("YYYY-MM") for the rows matching the filter,
+     * oldest first. Months between the first and last match with no changes are included as zeros.
+     */
+    public Optional<List<Map<String, Object>>> trend(BomChangeFilter filter) {
+        return columns().map(columns -> {
+            Groups months = columns.groupByMonth(slice(columns, filter));
+            long[] count = months.count();
+            int first = 0;
+            int last = count.length - 1;
+            while (first <= last && count[first] == 0) first++;
+            while (last >= first && count[last] == 0) last--;
+
+            List<Map<String, Object>> trend = new ArrayList<>();
+            for (int g = first; g <= last; g++) {
+                int month = columns.minMonth() + g;
+                Map<String, Object> point = new LinkedHashMap<>();
+                point.put("month", YearMonth.of(1970 + Math.floorDiv(month, 12), Math.floorMod(month, 12) + 1).toString());
+                point.put("changes", count[g]);
+                point.put("impact", BigDecimal.valueOf(months.impactCents()[g], 2));
+                trend.add(point);
+            }
+            return trend;
+        });
+    }
+
+    private Optional<BomChangeColumns> columns() {
+        Snapshot current = snapshot;
+        return current == null ? Optional.empty() : Optional.of(current.columns());
+    }
+
+    private static Map<String, Object> summary(BomChangeColumns columns, Dimension dimension) {
+        Groups groups = columns.groupBy(dimension, Slice.ALL);
+        Dictionary dictionary = columns.dictionary(dimension);
+        Map<String, Object> summary = new HashMap<>();
+        for (int code = 0; code < dictionary.size(); code++) {
+            if (groups.count()[code] == 0) {
+                continue;
+            }
+            Map<String, Object> data = new HashMap<>();
+            data.put("changes", groups.count()[code]);
+            data.put("impact", groups.impactCount()[code] == 0 ? null : BigDecimal.valueOf(groups.impactCents()[code], 2));
+            summary.put(dictionary.value(code), data);
+        }
+        return summary;
+    }
+
+    private static Map<String, Long> counts(BomChangeColumns columns, Dimension dimension) {
+        Groups groups = columns.groupBy(dimension, Slice.ALL);
+        Dictionary dictionary = columns.dictionary(dimension);
+        Map<String, Long> counts = new HashMap<>();
+        for (int code = 0; code < dictionary.size(); code++) {
+            if (groups.count()[code] > 0) {
+                counts.put(dictionary.value(code), groups.count()[code]);
+            }
+        }
+        return counts;
+    }
+
+    // Same criteria as BomChangeSpecifications.matching, in dictionary codes, epoch days and cents
+    private static Slice slice(BomChangeColumns columns, BomChangeFilter filter) {
+        int[] codes = new int[Dimension.values().length];
+        Arrays.fill(codes, Slice.ANY);
+        code(columns, codes, Dimension.MODEL, filter.model());
+        code(columns, codes, Dimension.SUPPLIER, filter.supplier());
+        code(columns, codes, Dimension.DEPARTMENT, filter.department());
+        code(columns, codes, Dimension.STATUS, filter.status() == null ? null : filter.status().name());
+        code(columns, codes, Dimension.CHANGE_TYPE, filter.changeType() == null ? null : filter.changeType().name());
+
+        int fromDay = filter.startDate() == null ? Integer.MIN_VALUE : (int) filter.startDate().toEpochDay();
+        int toDay = filter.endDate() == null ? Integer.MAX_VALUE : (int) filter.endDate().toEpochDay();
+        boolean impactBounded = filter.minImpact() != null || filter.maxImpact() != null;
+        long minCents = filter.minImpact() == null ? Long.MIN_VALUE + 1 : cents(filter.minImpact(), RoundingMode.CEILING);
+        long maxCents = filter.maxImpact() == null ? Long.MAX_VALUE : cents(filter.maxImpact(), RoundingMode.FLOOR);
+        return new Slice(codes, fromDay, toDay, impactBounded, minCents, maxCents);
+    }
+
+    private static void code(BomChangeColumns columns, int[] codes, Dimension dimension, String value) {
+        if (value != null) {
+            // A value never seen gets MISSING, which no row has
+            codes[dimension.ordinal()] = columns.dictionary(dimension).code(value);
+        }
+    }
+
+    // Bounds with more than two decimals are rounded inwards; out-of-range bounds are clamped
+    static long cents(BigDecimal amount, RoundingMode rounding) {
+        BigDecimal cents = amount.movePointRight(2).setScale(0, rounding);
+        if (cents.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0) return Long.MAX_VALUE;
+        if (cents.compareTo(BigDecimal.valueOf(Long.MIN_VALUE + 1)) < 0) return Long.MIN_VALUE + 1;
+        return cents.longValue();
+    }
+
+    private void refresh() {
+        try {
+            Snapshot current = snapshot;
+            // The log only goes back logRetention, so a copy older than that may have missed entries
+            if (current == null || current.syncedAt().isBefore(Instant.now().minus(logRetention))) {
+                snapshot = load();
+            } else {
+                snapshot = catchUp(current);
+            }
+            pruneLog();
+            if (failures > 0) {
+                log.info("BOM change analytics refresh recovered after {} failed attempt(s)", failures);
+                failures = 0;
+            }
+        } catch (Exception e) {
+            refreshFailed(e);
+        }
+    }
+
+    // The first failure with its stack trace, then a line per FAILURE_LOG_EVERY rather than one per refresh
+    private void refreshFailed(Exception e) {
+        failures++;
+        Instant now = Instant.now();
+        if (failures == 1) {
+            log.error("BOM change analytics refresh failed", e);
+            lastFailureLog = now;
+        } else if (lastFailureLog.plus(FAILURE_LOG_EVERY).isBefore(now)) {
+            log.warn("BOM change analytics refresh still failing after {} attempts: {}", failures, e.toString());
+            lastFailureLog = now;
+        } else {
+            log.debug("BOM change analytics refresh failed", e);
+        }
+    }
+
+    private Snapshot load() {
+        return snapshotTransaction.execute(status -> {
+            String xmin = jdbcTemplate.queryForObject(SNAPSHOT_XMIN, String.class);
+            BomChangeColumns.Builder builder = new BomChangeColumns.Builder(null, 0);
+            jdbcTemplate.query(LOAD_ROWS, rs -> {
+                builder.add(row(rs.getLong(1), rs));
+            });
+            return new Snapshot(builder.build(), xmin, Instant.now());
+        });
+    }
+
+    private Snapshot catchUp(Snapshot current) {
+        List<Row> changes = new ArrayList<>();
+        boolean[] truncated = new boolean[1];
+        String xmin = snapshotTransaction.execute(status -> {
+            String snapshotXmin = jdbcTemplate.queryForObject(SNAPSHOT_XMIN, String.class);
+            jdbcTemplate.query(CHANGED_ROWS, rs -> {
+                long id = rs.getLong(1);
+                if (rs.wasNull()) {
+                    truncated[0] = true;
+                } else if (!truncated[0]) {
+                    changes.add(rs.getString(2) == null ? Row.deleted(id) : row(id, rs));
+                }
+            }, current.xmin());
+            return snapshotXmin;
+        });
+        if (truncated[0]) {
+            return load();
+        }
+        BomChangeColumns columns = changes.isEmpty() ? current.columns() : current.columns().patch(changes);
+        return new Snapshot(columns, xmin, Instant.now());
+    }
+
+    private static Row row(long id, ResultSet rs) throws SQLException {
+        String[] values = {rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6)};
+        LocalDate effectiveDate = rs.getObject(7, LocalDate.class);
+        BigDecimal impact = rs.getBigDecimal(8);
+        long impactCents = impact == null ? BomChangeColumns.NO_IMPACT
+                : impact.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        return new Row(id, values, effectiveDate, impactCents);
+    }
+
+    private void pruneLog() {
+        Instant now = Instant.now();
+        if (lastPrune.plus(PRUNE_EVERY).isAfter(now)) {
+            return;
+        }
+        lastPrune = now;
+        jdbcTemplate.update(PRUNE_LOG, logRetention.toSeconds(), snapshot.xmin());
+    }
+}
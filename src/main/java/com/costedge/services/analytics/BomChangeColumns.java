@@ -0,0 +1,310 @@
+package com.costedge.services.analytics;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Immutable column-oriented copy of bom_changebox, sorted by id. Text columns are dictionary encoded,
+ * effective dates are epoch days and impacts are cents, so every aggregation is a loop over primitive
+ * arrays. Changes are applied by {@link #patch}, which returns a new snapshot; readers holding the old
+ * one are unaffected.
+ */
+final class BomChangeColumns {
+
+    /** Dictionary-encoded columns, in the order of {@link Row#values()}. */
+    enum Dimension { MODEL, SUPPLIER, DEPARTMENT, STATUS, CHANGE_TYPE }
+
+    /** Impact cents of a row whose impact is null. */
+    static final long NO_IMPACT = Long.MIN_VALUE;
+
+    private static final int DIMENSIONS = Dimension.values().length;
+    // Rows per fork-join leaf; smaller slices run as one loop on the calling thread
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    /** A row as read from the database; null values mark a deleted id. */
+    record Row(long id, String[] values, LocalDate effectiveDate, long impactCents) {
+
+        static Row deleted(long id) {
+            return new Row(id, null, null, NO_IMPACT);
+        }
+
+        boolean isDeleted() {
+            return values == null;
+        }
+    }
+
+    /**
+     * Row filter: a code per dimension ({@link #ANY} = not filtered, a code missing from the
+     * dictionary matches nothing), an inclusive epoch-day range and an optional inclusive impact range.
+     */
+    record Slice(int[] codes, int fromDay, int toDay, boolean impactBounded, long minCents, long maxCents) {
+
+        static final int ANY = -2;
+
+        static final Slice ALL = new Slice(filledCodes(), Integer.MIN_VALUE, Integer.MAX_VALUE, false, 0, 0);
+
+        private static int[] filledCodes() {
+            int[] codes = new int[DIMENSIONS];
+            Arrays.fill(codes, ANY);
+            return codes;
+        }
+
+        boolean isAll() {
+            return this == ALL;
+        }
+    }
+
+    /** Per-group row count, count of rows with an impact, and impact sum in cents. */
+    record Groups(long[] count, long[] impactCount, long[] impactCents) {
+
+        Groups(int groups) {
+            this(new long[groups], new long[groups], new long[groups]);
+        }
+
+        Groups add(Groups other) {
+            for (int g = 0; g < count.length; g++) {
+                count[g] += other.count[g];
+                impactCount[g] += other.impactCount[g];
+                impactCents[g] += other.impactCents[g];
+            }
+            return this;
+        }
+    }
+
+    private final int size;
+    private final long[] ids;
+    private final int[][] codes;
+    private final Dictionary[] dictionaries;
+    private final int[] epochDay;
+    // Months since 1970-01, derived from epochDay, for monthly trends
+    private final int[] month;
+    private final int minMonth;
+    private final int maxMonth;
+    private final long[] impactCents;
+
+    private BomChangeColumns(Builder builder) {
+        this.size = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, size);
+        this.codes = new int[DIMENSIONS][];
+        this.dictionaries = new Dictionary[DIMENSIONS];
+        for (int d = 0; d < DIMENSIONS; d++) {
+            this.codes[d] = Arrays.copyOf(builder.codes[d], size);
+            this.dictionaries[d] = builder.dictionaries[d].build();
+        }
+        this.epochDay = Arrays.copyOf(builder.epochDay, size);
+        this.month = Arrays.copyOf(builder.month, size);
+        this.impactCents = Arrays.copyOf(builder.impactCents, size);
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            min = Math.min(min, month[i]);
+            max = Math.max(max, month[i]);
+        }
+        this.minMonth = size == 0 ? 0 : min;
+        this.maxMonth = size == 0 ? -1 : max;
+    }
+
+    static BomChangeColumns empty() {
+        return new Builder(null, 0).build();
+    }
+
+    int size() {
+        return size;
+    }
+
+    Dictionary dictionary(Dimension dimension) {
+        return dictionaries[dimension.ordinal()];
+    }
+
+    int minMonth() {
+        return minMonth;
+    }
+
+    /**
+     * Applies changed rows, sorted by id: rows with a known id are replaced (or dropped if deleted),
+     * the rest are inserted in id order. Existing dictionary codes are kept.
+     */
+    BomChangeColumns patch(List<Row> changes) {
+        Builder builder = new Builder(this, size + changes.size());
+        int i = 0;
+        for (Row change : changes) {
+            while (i < size && ids[i] < change.id()) {
+                builder.copy(this, i++);
+            }
+            if (i < size && ids[i] == change.id()) {
+                i++;
+            }
+            if (!change.isDeleted()) {
+                builder.add(change);
+            }
+        }
+        while (i < size) {
+            builder.copy(this, i++);
+        }
+        return builder.build();
+    }
+
+    /** Totals of the rows in the slice, grouped by a dimension's codes. */
+    Groups groupBy(Dimension dimension, Slice slice) {
+        return group(codes[dimension.ordinal()], 0, dictionaries[dimension.ordinal()].size(), slice);
+    }
+
+    /** Totals of the rows in the slice, grouped by month; group g is month {@code minMonth() + g}. */
+    Groups groupByMonth(Slice slice) {
+        return group(month, minMonth, maxMonth - minMonth + 1, slice);
+    }
+
+    /** Totals of all rows in the slice, as a single group. */
+    Groups total(Slice slice) {
+        return group(null, 0, 1, slice);
+    }
+
+    private Groups group(int[] keys, int keyOffset, int groupCount, Slice slice) {
+        if (size < PARALLEL_THRESHOLD) {
+            return groupRange(keys, keyOffset, groupCount, slice, 0, size);
+        }
+        return ForkJoinPool.commonPool().invoke(new GroupTask(keys, keyOffset, groupCount, slice, 0, size));
+    }
+
+    private Groups groupRange(int[] keys, int keyOffset, int groupCount, Slice slice, int from, int to) {
+        Groups groups = new Groups(groupCount);
+        long[] count = groups.count();
+        long[] impactCount = groups.impactCount();
+        long[] impactSum = groups.impactCents();
+        boolean all = slice.isAll();
+        for (int i = from; i < to; i++) {
+            if (!all && !matches(slice, i)) {
+                continue;
+            }
+            int g = keys == null ? 0 : keys[i] - keyOffset;
+            count[g]++;
+            long cents = impactCents[i];
+            if (cents != NO_IMPACT) {
+                impactCount[g]++;
+                impactSum[g] += cents;
+            }
+        }
+        return groups;
+    }
+
+    private boolean matches(Slice slice, int row) {
+        int[] wanted = slice.codes();
+        for (int d = 0; d < DIMENSIONS; d++) {
+            if (wanted[d] != Slice.ANY && codes[d][row] != wanted[d]) {
+                return false;
+            }
+        }
+        int day = epochDay[row];
+        if (day < slice.fromDay() || day > slice.toDay()) {
+            return false;
+        }
+        if (slice.impactBounded()) {
+            long cents = impactCents[row];
+            return cents != NO_IMPACT && cents >= slice.minCents() && cents <= slice.maxCents();
+        }
+        return true;
+    }
+
+    // Splits the row range in halves until it is small enough to scan, then adds up the partial groups
+    private final class GroupTask extends RecursiveTask<Groups> {
+
+        private final int[] keys;
+        private final int keyOffset;
+        private final int groupCount;
+        private final Slice slice;
+        private final int from;
+        private final int to;
+
+        GroupTask(int[] keys, int keyOffset, int groupCount, Slice slice, int from, int to) {
+            this.keys = keys;
+            this.keyOffset = keyOffset;
+            this.groupCount = groupCount;
+            this.slice = slice;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Groups compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                return groupRange(keys, keyOffset, groupCount, slice, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            GroupTask left = new GroupTask(keys, keyOffset, groupCount, slice, from, mid);
+            left.fork();
+            Groups right = new GroupTask(keys, keyOffset, groupCount, slice, mid, to).compute();
+            return right.add(left.join());
+        }
+    }
+
+    /** Appends rows in ascending id order. */
+    static final class Builder {
+
+        private final Dictionary.Builder[] dictionaries = new Dictionary.Builder[DIMENSIONS];
+        private long[] ids;
+        private final int[][] codes = new int[DIMENSIONS][];
+        private int[] epochDay;
+        private int[] month;
+        private long[] impactCents;
+        private int size;
+
+        /** Starts empty, or from {@code base}'s dictionaries so its codes stay valid for {@link #copy}. */
+        Builder(BomChangeColumns base, int capacity) {
+            int initial = Math.max(capacity, 16);
+            for (int d = 0; d < DIMENSIONS; d++) {
+                dictionaries[d] = base == null ? new Dictionary.Builder() : new Dictionary.Builder(base.dictionaries[d]);
+                codes[d] = new int[initial];
+            }
+            ids = new long[initial];
+            epochDay = new int[initial];
+            month = new int[initial];
+            impactCents = new long[initial];
+        }
+
+        void add(Row row) {
+            ensureCapacity();
+            ids[size] = row.id();
+            for (int d = 0; d < DIMENSIONS; d++) {
+                codes[d][size] = dictionaries[d].encode(row.values()[d]);
+            }
+            LocalDate date = row.effectiveDate();
+            epochDay[size] = (int) date.toEpochDay();
+            month[size] = (date.getYear() - 1970) * 12 + date.getMonthValue() - 1;
+            impactCents[size] = row.impactCents();
+            size++;
+        }
+
+        void copy(BomChangeColumns base, int row) {
+            ensureCapacity();
+            ids[size] = base.ids[row];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                codes[d][size] = base.codes[d][row];
+            }
+            epochDay[size] = base.epochDay[row];
+            month[size] = base.month[row];
+            impactCents[size] = base.impactCents[row];
+            size++;
+        }
+
+        BomChangeColumns build() {
+            return new BomChangeColumns(this);
+        }
+
+        private void ensureCapacity() {
+            if (size < ids.length) {
+                return;
+            }
+            int capacity = ids.length + (ids.length >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            for (int d = 0; d < DIMENSIONS; d++) {
+                codes[d] = Arrays.copyOf(codes[d], capacity);
+            }
+            epochDay = Arrays.copyOf(epochDay, capacity);
+            month = Arrays.copyOf(month, capacity);
+            impactCents = Arrays.copyOf(impactCents, capacity);
+        }
+    }
+}
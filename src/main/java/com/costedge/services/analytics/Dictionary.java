@@ -0,0 +1,65 @@
+package com.costedge.services.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the distinct values of a text column to dense int codes (0, 1, 2...).
+ * Immutable; a {@link Builder} seeded from an existing dictionary keeps its codes and appends new values.
+ */
+final class Dictionary {
+
+    static final int MISSING = -1;
+
+    private final List<String> values;
+    private final Map<String, Integer> codes;
+
+    private Dictionary(List<String> values, Map<String, Integer> codes) {
+        this.values = values;
+        this.codes = codes;
+    }
+
+    int code(String value) {
+        return codes.getOrDefault(value, MISSING);
+    }
+
+    String value(int code) {
+        return values.get(code);
+    }
+
+    int size() {
+        return values.size();
+    }
+
+    static final class Builder {
+
+        private final List<String> values;
+        private final Map<String, Integer> codes;
+
+        Builder() {
+            this.values = new ArrayList<>();
+            this.codes = new HashMap<>();
+        }
+
+        Builder(Dictionary base) {
+            this.values = new ArrayList<>(base.values);
+            this.codes = new HashMap<>(base.codes);
+        }
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        Dictionary build() {
+            return new Dictionary(List.copyOf(values), Map.copyOf(codes));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.costedge.services.imports;
+
+import com.costedge.model.BomChange;
+import com.costedge.model.BomChangeStatus;
+import com.costedge.model.BomChangeType;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Converts one spreadsheet row into a validated BomChange.
+ * Throws IllegalArgumentException with a readable message when the row cannot be imported.
+ */
+@Component
+public class BomChangeRowMapper {
+
+    private final Validator validator;
+
+    public BomChangeRowMapper(Validator validator) {
+        this.validator = validator;
+    }
+
+    public BomChange map(List<String> cells) {
+        return map(cells, false);
+    }
+
+    /**
+     * For merge imports, where the effective date is part of the key rows are matched on:
+     * a missing or unreadable date rejects the row instead of defaulting to today,
+     * which would update whichever row happens to be dated today.
+     */
+    public BomChange mapForMerge(List<String> cells) {
+        return map(cells, true);
+    }
+
+    private BomChange map(List<String> cells, boolean dateRequired) {
+        BomChange bomChange = new BomChange();
+
+        // Expected column order based on your frontend:
+        // Model, Part Name, Part Number, Old Cost, New Cost, Supplier, Effective Date,
+        // Change Type, Status, Department, Remarks, Quantity (optional, defaults to 1)
+
+        bomChange.setModel(getString(cells, 0));
+        bomChange.setPartName(getString(cells, 1));
+        bomChange.setPartNumber(getString(cells, 2));
+        bomChange.setOldCost(getBigDecimal(cells, 3));
+        bomChange.setNewCost(getBigDecimal(cells, 4));
+        bomChange.setSupplier(getString(cells, 5));
+        bomChange.setEffectiveDate(dateRequired ? getRequiredLocalDate(cells, 6) : getLocalDate(cells, 6));
+        bomChange.setChangeType(getChangeType(cells, 7));
+        bomChange.setStatus(getStatus(cells, 8));
+        bomChange.setDepartment(getString(cells, 9));
+        bomChange.setRemarks(getString(cells, 10));
+        bomChange.setQuantity(getQuantity(cells, 11));
+
+        // Calculate impact
+        if (bomChange.getOldCost() != null && bomChange.getNewCost() != null) {
+            bomChange.setImpact(bomChange.getNewCost().subtract(bomChange.getOldCost()));
+        }
+
+        Set<ConstraintViolation<BomChange>> violations = validator.validate(bomChange);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        return bomChange;
+    }
+
+    static String getString(List<String> cells, int index) {
+        return index < cells.size() ? cells.get(index) : "";
+    }
+
+    static BigDecimal getBigDecimal(List<String> cells, int index) {
+        String value = getString(cells, index).replaceAll("[^\\d.-]", "");
+        if (value.isEmpty()) return BigDecimal.ZERO;
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            return BigDecimal.ZERO;
+        }
+    }
+
+    static LocalDate getLocalDate(List<String> cells, int index) {
+        try {
+            return LocalDate.parse(getString(cells, index));
+        } catch (Exception e) {
+            return LocalDate.now();
+        }
+    }
+
+    static LocalDate getRequiredLocalDate(List<String> cells, int index) {
+        String value = getString(cells, index);
+        if (value.isEmpty()) {
+            throw new IllegalArgumentException("effectiveDate: Effective date is required");
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("effectiveDate: '" + value + "' is not a date (yyyy-MM-dd)");
+        }
+    }
+
+    static Integer getQuantity(List<String> cells, int index) {
+        String value = getString(cells, index);
+        if (value.isEmpty()) return 1;
+        try {
+            return new BigDecimal(value).intValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException("quantity: '" + value + "' is not a whole number");
+        }
+    }
+
+    private BomChangeType getChangeType(List<String> cells, int index) {
+        try {
+            return BomChangeType.valueOf(getString(cells, index).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            // Default fallback
+            return BomChangeType.NEW_PART;
+        }
+    }
+
+    private BomChangeStatus getStatus(List<String> cells, int index) {
+        try {
+            return BomChangeStatus.valueOf(getString(cells, index).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            // Default fallback
+            return BomChangeStatus.PENDING;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.costedge.services.imports;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 tokenizer: comma separated, fields optionally quoted with "",
+ * quotes escaped by doubling, quoted fields may span lines.
+ * Rows are handed out the same way as StreamingXlsxReader's, so the Excel row mappers apply unchanged:
+ * the header row and blank rows are skipped and values are trimmed. Row numbers count records,
+ * not lines, so a quoted field spanning lines does not shift them.
+ *
+ * <p>A record longer than {@code maxRecordLength} characters is not buffered: the rest of it is
+ * skipped and reported to the error handler, and reading continues with the next record.
+ */
+public class CsvRowReader {
+
+    @FunctionalInterface
+    public interface RowErrorHandler {
+        void rowFailed(int rowNumber, String message);
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    // Returned by nextRow for a record over the length limit
+    private static final List<String> TOO_LONG = Collections.unmodifiableList(new ArrayList<>());
+
+    private final Reader in;
+    private final int maxRecordLength;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int length;
+    private int position;
+    private int recordNumber;
+
+    public CsvRowReader(Reader in, int maxRecordLength) {
+        this.in = in;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    public void read(StreamingXlsxReader.RowHandler handler, RowErrorHandler errors) throws IOException {
+        List<String> cells;
+        while ((cells = nextRow()) != null) {
+            if (cells == TOO_LONG) {
+                errors.rowFailed(recordNumber, "Row is longer than " + maxRecordLength + " characters");
+                continue;
+            }
+            if (recordNumber == 1 || cells.stream().allMatch(String::isEmpty)) {
+                continue;
+            }
+            handler.handleRow(recordNumber, cells);
+        }
+    }
+
+    // Returns the next record, TOO_LONG if it exceeded the length limit, or null at end of input
+    private List<String> nextRow() throws IOException {
+        int c = nextChar();
+        if (c == -1) {
+            return null;
+        }
+        recordNumber++;
+        // Excel writes a byte order mark at the start of UTF-8 exports
+        if (recordNumber == 1 && c == '\uFEFF') {
+            c = nextChar();
+        }
+
+        List<String> cells = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int recordLength = 0;
+        boolean tooLong = false;
+        boolean quoted = false;
+        // Tracked apart from field, which stays empty once the record is too long
+        boolean fieldBlank = true;
+        while (true) {
+            if (!tooLong && ++recordLength > maxRecordLength) {
+                // Keep scanning for the end of the record, but stop collecting it
+                tooLong = true;
+                cells.clear();
+                field.setLength(0);
+            }
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field in row " + recordNumber);
+                }
+                if (c == '"') {
+                    int next = nextChar();
+                    if (next == '"') {
+                        append(field, '"', tooLong);
+                        fieldBlank = false;
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    append(field, (char) c, tooLong);
+                    fieldBlank = false;
+                }
+            } else if (c == '"' && fieldBlank) {
+                field.setLength(0);
+                quoted = true;
+            } else if (c == ',') {
+                if (!tooLong) {
+                    cells.add(field.toString().trim());
+                }
+                field.setLength(0);
+                fieldBlank = true;
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r') {
+                    skipLineFeed();
+                }
+                if (tooLong) {
+                    return TOO_LONG;
+                }
+                cells.add(field.toString().trim());
+                return cells;
+            } else {
+                append(field, (char) c, tooLong);
+                fieldBlank &= Character.isWhitespace(c);
+            }
+            c = nextChar();
+        }
+    }
+
+    private static void append(StringBuilder field, char c, boolean discard) {
+        if (!discard) {
+            field.append(c);
+        }
+    }
+
+    private void skipLineFeed() throws IOException {
+        if (position == length && fill() == -1) {
+            return;
+        }
+        if (buffer[position] == '\n') {
+            position++;
+        }
+    }
+
+    private int nextChar() throws IOException {
+        if (position == length && fill() == -1) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int fill() throws IOException {
+        length = in.read(buffer);
+        position = 0;
+        if (length <= 0) {
+            length = 0;
+            return -1;
+        }
+        return length;
+    }
+}
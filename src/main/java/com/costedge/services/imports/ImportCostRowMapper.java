@@ -0,0 +1,90 @@
+package com.costedge.services.imports;
+
+import com.costedge.model.ImportCost;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.costedge.services.imports.BomChangeRowMapper.getString;
+
+/**
+ * Converts one row of a freight/duty/insurance sheet into a validated ImportCost.
+ * Throws IllegalArgumentException with a readable message when the row cannot be imported.
+ */
+@Component
+public class ImportCostRowMapper {
+
+    private final Validator validator;
+
+    public ImportCostRowMapper(Validator validator) {
+        this.validator = validator;
+    }
+
+    public ImportCost map(List<String> cells) {
+        // Expected column order:
+        // Shipment ID, Date, Supplier, Model, Part Name, Quantity, Freight, Duty, Insurance,
+        // Document (optional)
+
+        ImportCost importCost = new ImportCost();
+        // Blank text columns are left blank so bean validation reports them
+        importCost.setShipmentId(getString(cells, 0));
+        importCost.setDate(getDate(cells, 1));
+        importCost.setSupplier(getString(cells, 2));
+        importCost.setModel(getString(cells, 3));
+        importCost.setPartName(getString(cells, 4));
+        importCost.setQuantity(BomChangeRowMapper.getQuantity(cells, 5));
+        importCost.setFreight(getAmount(cells, 6, "freight"));
+        importCost.setDuty(getAmount(cells, 7, "duty"));
+        importCost.setInsurance(getAmount(cells, 8, "insurance"));
+
+        String document = getString(cells, 9);
+        importCost.setDocument(document.isEmpty() ? null : document);
+
+        Set<ConstraintViolation<ImportCost>> violations = validator.validate(importCost);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        return importCost;
+    }
+
+    // Unlike BOM sheets, customs exports are re-sent as corrections, so a missing or
+    // malformed value is reported instead of being replaced by a default
+    private static LocalDate getDate(List<String> cells, int index) {
+        String value = getString(cells, index);
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("date: '" + value + "' is not a date (expected yyyy-MM-dd)");
+        }
+    }
+
+    private static BigDecimal getAmount(List<String> cells, int index, String field) {
+        String value = getString(cells, index).replaceAll("[^\\d.-]", "");
+        if (value.isEmpty()) return BigDecimal.ZERO;
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(field + ": '" + getString(cells, index) + "' is not a number");
+        }
+        // numeric(10,2) column; an oversized value would otherwise fail the whole batch in the database
+        if (amount.setScale(2, RoundingMode.HALF_UP).precision() > 10) {
+            throw new IllegalArgumentException(field + ": '" + value + "' is too large");
+        }
+        return amount;
+    }
+}
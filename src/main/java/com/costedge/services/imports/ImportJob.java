@@ -0,0 +1,114 @@
+package com.costedge.services.imports;
+
+import com.costedge.model.DTO.ImportSummary;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * State of one background import. Counters live in the shared ImportSummary,
+ * which the import updates as it goes; throughput and ETA are derived on read.
+ */
+public class ImportJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String jobId;
+    private final String type;
+    private final String fileName;
+    private final String mode;
+    private final String contentHash;
+    private final String duplicateOf;
+    private final Instant createdAt = Instant.now();
+    private final ImportSummary summary;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile long estimatedRows = -1;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public ImportJob(String jobId, String type, String fileName, String mode, String contentHash) {
+        this(jobId, type, fileName, mode, contentHash, new ImportSummary(), null);
+    }
+
+    // duplicateOf: id of the earlier job whose result this job reports instead of importing again
+    ImportJob(String jobId, String type, String fileName, String mode, String contentHash,
+              ImportSummary summary, String duplicateOf) {
+        this.jobId = jobId;
+        this.type = type;
+        this.fileName = fileName;
+        this.mode = mode;
+        this.contentHash = contentHash;
+        this.summary = summary;
+        this.duplicateOf = duplicateOf;
+    }
+
+    void started(long estimatedRows) {
+        this.estimatedRows = estimatedRows;
+        this.startedAt = Instant.now();
+        this.status = Status.RUNNING;
+    }
+
+    void completed() {
+        this.finishedAt = Instant.now();
+        this.status = Status.COMPLETED;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.status = Status.FAILED;
+    }
+
+    boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    // Rows parsed per second since the job started
+    public double getRowsPerSecond() {
+        if (startedAt == null) return 0;
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        double seconds = Duration.between(startedAt, end).toMillis() / 1000.0;
+        return seconds > 0 ? summary.getRowsRead() / seconds : 0;
+    }
+
+    // Seconds left at the current rate; null when finished or the row count is unknown
+    public Long getEtaSeconds() {
+        double rate = getRowsPerSecond();
+        if (isFinished() || estimatedRows < 0 || rate <= 0) return null;
+        long remaining = Math.max(0, estimatedRows - summary.getRowsRead());
+        return Math.round(remaining / rate);
+    }
+
+    // Getters
+    public String getJobId() { return jobId; }
+    public String getType() { return type; }
+    public String getFileName() { return fileName; }
+    public String getMode() { return mode; }
+    public String getContentHash() { return contentHash; }
+    public String getDuplicateOf() { return duplicateOf; }
+    public Status getStatus() { return status; }
+    public long getEstimatedRows() { return estimatedRows; }
+    public long getRowsParsed() { return summary.getRowsRead(); }
+    public long getRowsSaved() { return summary.getRowsSaved(); }
+    public long getRowsFailed() { return summary.getRowsFailed(); }
+    public long getRowsInserted() { return summary.getRowsInserted(); }
+    public long getRowsUpdated() { return summary.getRowsUpdated(); }
+    public long getRowsUnchanged() { return summary.getRowsUnchanged(); }
+    public List<ImportSummary.RowError> getErrors() { return summary.getErrors(); }
+    public Map<String, Long> getStageMillis() { return summary.getStageMillis(); }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public String getError() { return error; }
+
+    ImportSummary summary() { return summary; }
+}
@@ -0,0 +1,260 @@
+package com.costedge.services.imports;
+
+import com.costedge.model.DTO.ImportSummary;
+import com.costedge.model.ImportUpload;
+import com.costedge.repository.ImportUploadRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs Excel imports in the background so uploads return immediately.
+ * Jobs run on a small fixed pool with a bounded queue; when both are full the upload is rejected.
+ * Job state is kept in memory and dropped after the retention period; the outcome of each
+ * import is also recorded in import_uploads, keyed by the file's content hash.
+ */
+@Service
+public class ImportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportJobService.class);
+
+    @FunctionalInterface
+    public interface ImportTask {
+        void run(Path file, ImportSummary summary) throws Exception;
+    }
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final StreamingXlsxReader xlsxReader;
+    private final ImportUploadRepository uploadRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration retention;
+    private final Duration dedupeWindow;
+    private final Object submitLock = new Object();
+
+    public ImportJobService(StreamingXlsxReader xlsxReader,
+                            ImportUploadRepository uploadRepository,
+                            ObjectMapper objectMapper,
+                            @Value("${costedge.import.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                            @Value("${costedge.import.max-queued-jobs:20}") int maxQueuedJobs,
+                            @Value("${costedge.import.job-retention:PT24H}") Duration retention,
+                            @Value("${costedge.import.dedupe-window:PT24H}") Duration dedupeWindow) {
+        this.xlsxReader = xlsxReader;
+        this.uploadRepository = uploadRepository;
+        this.objectMapper = objectMapper;
+        this.retention = retention;
+        this.dedupeWindow = dedupeWindow;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueuedJobs),
+                r -> {
+                    Thread thread = new Thread(r, "import-job-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Copies the upload to a temp file (the multipart file is gone once the request ends)
+     * and queues the import. The file's SHA-256 is computed during the copy; unless {@code force}
+     * is set, a file identical to one imported in the same mode within the dedupe window is not
+     * imported again and the earlier job (still running, or replayed from the upload history)
+     * is returned instead.
+     *
+     * @throws RejectedExecutionException when the import queue is full
+     */
+    public ImportJob submit(String type, MultipartFile file, String mode, boolean force,
+                            ImportTask task) throws IOException {
+        pruneFinishedJobs();
+
+        Path tempFile = Files.createTempFile("costedge-import-", ".xlsx");
+        String contentHash;
+        try (DigestInputStream in = new DigestInputStream(file.getInputStream(), sha256())) {
+            Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            contentHash = HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        // Check and register under one lock so two simultaneous retries cannot both start an import
+        synchronized (submitLock) {
+            Optional<ImportJob> previous = force ? Optional.empty()
+                    : findPreviousImport(type, contentHash, file.getOriginalFilename(), mode);
+            if (previous.isPresent()) {
+                Files.deleteIfExists(tempFile);
+                return previous.get();
+            }
+
+            ImportJob job = new ImportJob(UUID.randomUUID().toString(), type, file.getOriginalFilename(), mode,
+                    contentHash);
+            jobs.put(job.getJobId(), job);
+            try {
+                executor.execute(() -> run(job, tempFile, task));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(job.getJobId());
+                Files.deleteIfExists(tempFile);
+                throw e;
+            }
+            return job;
+        }
+    }
+
+    public Optional<ImportJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void run(ImportJob job, Path file, ImportTask task) {
+        String error = null;
+        try {
+            job.started(xlsxReader.estimateRowCount(file));
+            task.run(file, job.summary());
+        } catch (Exception e) {
+            log.error("Import job {} ({}, {}) failed", job.getJobId(), job.getType(), job.getFileName(), e);
+            // e.g. the constraint violation behind a failed COPY rather than the generic wrapper message
+            Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+            error = cause == e ? e.getMessage() : e.getMessage() + ": " + cause.getMessage();
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Import job {} ({}): could not delete import file {}", job.getJobId(), job.getType(), file, e);
+            }
+        }
+        // Recorded before the job is finished, so whoever polls for the outcome also sees a failure to record it
+        try {
+            recordUpload(job, error);
+        } finally {
+            if (error == null) {
+                job.completed();
+            } else {
+                job.failed(error);
+            }
+        }
+    }
+
+    private Optional<ImportJob> findPreviousImport(String type, String contentHash, String fileName, String mode) {
+        if (dedupeWindow.isZero()) {
+            return Optional.empty();
+        }
+
+        // Same file still queued or running: hand back that job rather than starting a second one
+        Optional<ImportJob> inFlight = jobs.values().stream()
+                .filter(job -> !job.isFinished() && job.getType().equals(type) && job.getMode().equals(mode)
+                        && contentHash.equals(job.getContentHash()))
+                .findFirst();
+        if (inFlight.isPresent()) {
+            return inFlight;
+        }
+
+        return uploadRepository
+                .findFirstByImportTypeAndModeAndContentHashAndStatusAndCreatedAtAfterOrderByCreatedAtDesc(
+                        type, mode, contentHash, ImportJob.Status.COMPLETED.name(), Instant.now().minus(dedupeWindow))
+                .map(upload -> {
+                    ImportSummary summary = ImportSummary.restore(upload.getRowsRead(), upload.getRowsSaved(),
+                            upload.getRowsFailed(), upload.getRowsInserted(), upload.getRowsUpdated(),
+                            upload.getRowsUnchanged(), readErrors(upload));
+                    ImportJob job = new ImportJob(UUID.randomUUID().toString(), type, fileName, mode, contentHash,
+                            summary, upload.getJobId());
+                    job.started(upload.getRowsRead());
+                    job.completed();
+                    jobs.put(job.getJobId(), job);
+                    return job;
+                });
+    }
+
+    // Keeps the outcome of every import; completed ones answer later identical uploads
+    private void recordUpload(ImportJob job, String error) {
+        try {
+            ImportUpload upload = new ImportUpload();
+            upload.setJobId(job.getJobId());
+            upload.setImportType(job.getType());
+            upload.setMode(job.getMode());
+            upload.setContentHash(job.getContentHash());
+            upload.setFileName(job.getFileName());
+            upload.setStatus((error == null ? ImportJob.Status.COMPLETED : ImportJob.Status.FAILED).name());
+            upload.setRowsRead(job.getRowsParsed());
+            upload.setRowsSaved(job.getRowsSaved());
+            upload.setRowsFailed(job.getRowsFailed());
+            upload.setRowsInserted(job.getRowsInserted());
+            upload.setRowsUpdated(job.getRowsUpdated());
+            upload.setRowsUnchanged(job.getRowsUnchanged());
+            upload.setErrors(objectMapper.writeValueAsString(job.getErrors()));
+            if (error != null) {
+                upload.setError(error.length() > 1000 ? error.substring(0, 1000) : error);
+            }
+            upload.setCreatedAt(job.getCreatedAt());
+            upload.setFinishedAt(Instant.now());
+            uploadRepository.save(upload);
+        } catch (Exception e) {
+            log.warn("Import job {} ({}): could not record the upload in import_uploads",
+                    job.getJobId(), job.getType(), e);
+            job.summary().importError("The import was not recorded, so an identical upload will be imported again: "
+                    + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        }
+    }
+
+    private List<ImportSummary.RowError> readErrors(ImportUpload upload) {
+        List<ImportSummary.RowError> errors = new ArrayList<>();
+        if (upload.getErrors() == null) {
+            return errors;
+        }
+        try {
+            for (JsonNode error : objectMapper.readTree(upload.getErrors())) {
+                errors.add(new ImportSummary.RowError(error.path("row").asInt(), error.path("message").asText()));
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("Import job {} ({}): could not read its recorded errors",
+                    upload.getJobId(), upload.getImportType(), e);
+        }
+        return errors;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void pruneFinishedJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,254 @@
+package com.costedge.services.imports;
+
+import com.costedge.model.DTO.ImportSummary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Staged Excel import: one reader thread parses the sheet, a pool of workers converts and
+ * validates rows, and one writer commits fixed-size batches. Stages are connected by bounded
+ * queues, so a slow stage blocks the one before it instead of letting rows pile up in memory.
+ *
+ * <p>Stage timings are added to the ImportSummary (in ms):
+ * <ul>
+ *   <li>read / readBlocked: sheet parsing, and time the reader waited on the workers</li>
+ *   <li>convert / convertBlocked: row conversion summed over workers, and time they waited on the writer</li>
+ *   <li>write / writeIdle: time in the database, and time the writer waited for rows</li>
+ * </ul>
+ * A large readBlocked points at conversion, a large convertBlocked at the database,
+ * and a large writeIdle at parsing.
+ *
+ * <p>With several workers, rows reach the writer in no particular order. Merge imports, where a
+ * later row for the same key must win, use {@link #runInOrder} instead: one worker keeps the
+ * sheet's row order all the way to the sink.
+ */
+@Component
+public class ImportPipeline {
+
+    /** Receives converted rows on the writer thread. */
+    public interface BatchSink<T> {
+        /** Writes one batch and returns the number of rows committed. */
+        long write(List<T> batch);
+
+        /** Called once after the last batch; returns rows committed at the end (e.g. by COPY). */
+        default long finish() {
+            return 0;
+        }
+    }
+
+    private record RawRow(int rowNumber, List<String> cells) {
+    }
+
+    private static final RawRow END_OF_ROWS = new RawRow(-1, List.of());
+    private static final Object END_OF_ITEMS = new Object();
+
+    private final StreamingXlsxReader xlsxReader;
+    private final int workers;
+    private final int queueCapacity;
+    private final int batchSize;
+
+    public ImportPipeline(StreamingXlsxReader xlsxReader,
+                          @Value("${costedge.import.pipeline.workers:0}") int workers,
+                          @Value("${costedge.import.pipeline.queue-capacity:2000}") int queueCapacity,
+                          @Value("${costedge.persistence.batch-size:500}") int batchSize) {
+        this.xlsxReader = xlsxReader;
+        this.workers = workers > 0 ? workers : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports the first sheet of {@code file}. The calling thread acts as the reader and returns
+     * once every stage has finished. Rows the mapper rejects are reported in the summary;
+     * a failure in the sink aborts the whole pipeline and is rethrown.
+     */
+    public <T> void run(Path file, Function<List<String>, T> mapper, BatchSink<T> sink,
+                        ImportSummary summary) throws Exception {
+        run(file, mapper, sink, summary, workers);
+    }
+
+    /** Like {@link #run}, but rows reach the sink in sheet order, so the last of two rows with the same key wins. */
+    public <T> void runInOrder(Path file, Function<List<String>, T> mapper, BatchSink<T> sink,
+                               ImportSummary summary) throws Exception {
+        run(file, mapper, sink, summary, 1);
+    }
+
+    private <T> void run(Path file, Function<List<String>, T> mapper, BatchSink<T> sink,
+                         ImportSummary summary, int workers) throws Exception {
+        Run<T> run = new Run<>(mapper, sink, summary, workers);
+        run.start();
+
+        long readStart = System.nanoTime();
+        try {
+            xlsxReader.read(file, (rowNumber, cells) -> {
+                summary.rowRead();
+                run.put(run.rawRows, new RawRow(rowNumber, cells), "readBlocked");
+            });
+            for (int i = 0; i < workers; i++) {
+                run.put(run.rawRows, END_OF_ROWS, "readBlocked");
+            }
+        } catch (Exception e) {
+            run.abort(e);
+        } finally {
+            summary.addStageTime("read", System.nanoTime() - readStart - summary.getStageNanos("readBlocked"));
+        }
+
+        run.await();
+    }
+
+    private class Run<T> {
+
+        final BlockingQueue<RawRow> rawRows = new ArrayBlockingQueue<>(queueCapacity);
+        final BlockingQueue<Object> items = new ArrayBlockingQueue<>(queueCapacity);
+        final CountDownLatch finished;
+        final AtomicInteger activeWorkers;
+
+        final Function<List<String>, T> mapper;
+        final BatchSink<T> sink;
+        final ImportSummary summary;
+        final int workers;
+
+        volatile Exception failure;
+
+        Run(Function<List<String>, T> mapper, BatchSink<T> sink, ImportSummary summary, int workers) {
+            this.mapper = mapper;
+            this.sink = sink;
+            this.summary = summary;
+            this.workers = workers;
+            this.finished = new CountDownLatch(workers + 1);
+            this.activeWorkers = new AtomicInteger(workers);
+        }
+
+        void start() {
+            for (int i = 0; i < workers; i++) {
+                startThread("import-convert-" + i, this::convert);
+            }
+            startThread("import-write", this::write);
+        }
+
+        void startThread(String name, Runnable stage) {
+            Thread thread = new Thread(() -> {
+                try {
+                    stage.run();
+                } catch (Exception e) {
+                    abort(e);
+                } finally {
+                    finished.countDown();
+                }
+            }, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void convert() {
+            while (true) {
+                RawRow row = take(rawRows);
+                if (row == END_OF_ROWS) {
+                    // the last worker to finish tells the writer
+                    if (activeWorkers.decrementAndGet() == 0) {
+                        put(items, END_OF_ITEMS, "convertBlocked");
+                    }
+                    return;
+                }
+
+                long start = System.nanoTime();
+                T item;
+                try {
+                    item = mapper.apply(row.cells());
+                } catch (Exception e) {
+                    // Report the row and continue with the rest of the sheet
+                    summary.rowFailed(row.rowNumber(), e.getMessage());
+                    continue;
+                } finally {
+                    summary.addStageTime("convert", System.nanoTime() - start);
+                }
+                put(items, item, "convertBlocked");
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void write() {
+            List<T> batch = new ArrayList<>(batchSize);
+            while (true) {
+                long waitStart = System.nanoTime();
+                Object item = take(items);
+                summary.addStageTime("writeIdle", System.nanoTime() - waitStart);
+
+                if (item == END_OF_ITEMS) {
+                    long start = System.nanoTime();
+                    if (!batch.isEmpty()) {
+                        summary.rowsSaved(sink.write(batch));
+                    }
+                    summary.rowsSaved(sink.finish());
+                    summary.addStageTime("write", System.nanoTime() - start);
+                    return;
+                }
+
+                batch.add((T) item);
+                if (batch.size() >= batchSize) {
+                    long start = System.nanoTime();
+                    summary.rowsSaved(sink.write(batch));
+                    summary.addStageTime("write", System.nanoTime() - start);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+
+        // Blocking put that gives up once another stage has failed, so nothing waits forever
+        <E> void put(BlockingQueue<E> queue, E element, String blockedStage) {
+            long start = System.nanoTime();
+            try {
+                while (!queue.offer(element, 100, TimeUnit.MILLISECONDS)) {
+                    checkNotAborted();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import interrupted", e);
+            } finally {
+                summary.addStageTime(blockedStage, System.nanoTime() - start);
+            }
+        }
+
+        <E> E take(BlockingQueue<E> queue) {
+            try {
+                E element;
+                while ((element = queue.poll(100, TimeUnit.MILLISECONDS)) == null) {
+                    checkNotAborted();
+                }
+                return element;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import interrupted", e);
+            }
+        }
+
+        void checkNotAborted() {
+            if (failure != null) {
+                throw new IllegalStateException("Import aborted", failure);
+            }
+        }
+
+        synchronized void abort(Exception e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+
+        void await() throws Exception {
+            finished.await();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.costedge.services.imports;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Bulk loads rows with PostgreSQL COPY ... FROM STDIN (CSV format).
+ * Each session is a single COPY statement on its own auto-commit connection,
+ * so the load is all-or-nothing and never holds entities in memory.
+ */
+@Component
+public class PgCopyLoader {
+
+    private static final int FLUSH_THRESHOLD = 64 * 1024;
+
+    private final DataSource dataSource;
+    private final SequenceIdAllocator idAllocator;
+
+    public PgCopyLoader(DataSource dataSource, SequenceIdAllocator idAllocator) {
+        this.dataSource = dataSource;
+        this.idAllocator = idAllocator;
+    }
+
+    /**
+     * Starts a COPY into {@code table}. The id column is filled from {@code sequenceName};
+     * values passed to {@link CopySession#writeRow} must follow the order of {@code columns}.
+     */
+    public CopySession open(String table, String sequenceName, List<String> columns) {
+        String sql = "COPY " + table + " (id, " + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)";
+        Connection connection = null;
+        try {
+            connection = dataSource.getConnection();
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+            return new CopySession(table, connection, copyIn, idAllocator.idSource(sequenceName));
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw new DataAccessResourceFailureException("Could not start COPY into " + table, e);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection == null) return;
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // connection is broken anyway
+        }
+    }
+
+    public static class CopySession implements AutoCloseable {
+
+        private final String table;
+        private final Connection connection;
+        private final CopyIn copyIn;
+        private final LongSupplier ids;
+        private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 1024);
+        private long rows;
+        private boolean finished;
+
+        private CopySession(String table, Connection connection, CopyIn copyIn, LongSupplier ids) {
+            this.table = table;
+            this.connection = connection;
+            this.copyIn = copyIn;
+            this.ids = ids;
+        }
+
+        public void writeRow(Object... values) {
+            buffer.append(ids.getAsLong());
+            for (Object value : values) {
+                buffer.append(',');
+                appendCsv(value);
+            }
+            buffer.append('\n');
+            rows++;
+            if (buffer.length() >= FLUSH_THRESHOLD) {
+                flush();
+            }
+        }
+
+        /** Ends the COPY and returns the number of rows the server inserted. */
+        public long finish() {
+            flush();
+            try {
+                finished = true;
+                return copyIn.endCopy();
+            } catch (SQLException e) {
+                throw new DataAccessResourceFailureException("COPY into " + table + " failed", e);
+            }
+        }
+
+        public long getRowsWritten() {
+            return rows;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (!finished && copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            } catch (SQLException ignored) {
+                // the connection is closed below either way
+            } finally {
+                closeQuietly(connection);
+            }
+        }
+
+        private void flush() {
+            if (buffer.length() == 0) return;
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            try {
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+            } catch (SQLException e) {
+                throw new DataAccessResourceFailureException("COPY into " + table + " failed", e);
+            }
+            buffer.setLength(0);
+        }
+
+        // NULL is an unquoted empty field; everything else is quoted so commas, quotes and newlines survive
+        private void appendCsv(Object value) {
+            if (value == null) return;
+            String text = value instanceof Enum<?> e ? e.name()
+                    : value instanceof BigDecimal d ? d.toPlainString()
+                    : value.toString();
+            buffer.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"') buffer.append('"');
+                buffer.append(c);
+            }
+            buffer.append('"');
+        }
+    }
+}
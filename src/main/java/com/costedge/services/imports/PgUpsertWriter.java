@@ -0,0 +1,122 @@
+package com.costedge.services.imports;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Set-based merge with INSERT ... ON CONFLICT DO UPDATE: one statement per batch instead of
+ * a lookup and a write per row. Rows whose values did not change are left untouched. Inserted
+ * rows are told apart from updated ones by the returned id: only an insert takes the id allocated
+ * for it, since updates leave id alone. (RETURNING xmax would be simpler, but system columns
+ * cannot be returned from a partitioned table such as bom_changebox.)
+ */
+@Component
+public class PgUpsertWriter {
+
+    /**
+     * Where and how rows of type T are merged. Columns exclude id, which is always allocated.
+     * The optional timestamp column is set on update but not compared, so it only moves
+     * when one of the update columns actually changed.
+     */
+    public record Target<T>(String table,
+                            List<String> columns,
+                            List<String> conflictColumns,
+                            List<String> updateColumns,
+                            String timestampColumn,
+                            Function<T, Object[]> values,
+                            Function<T, List<Object>> key) {
+
+        public Target(String table, List<String> columns, List<String> conflictColumns,
+                      List<String> updateColumns, Function<T, Object[]> values, Function<T, List<Object>> key) {
+            this(table, columns, conflictColumns, updateColumns, null, values, key);
+        }
+    }
+
+    public record MergeCounts(long inserted, long updated, long unchanged) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PgUpsertWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public <T> MergeCounts upsert(Target<T> target, List<T> rows, LongSupplier ids) {
+        long inserted = 0;
+        long updated = 0;
+        long unchanged = 0;
+
+        // Postgres rejects a statement that touches the same key twice, so repeated keys start a new statement
+        List<T> statementRows = new ArrayList<>();
+        Set<List<Object>> keys = new HashSet<>();
+        for (int i = 0; i <= rows.size(); i++) {
+            boolean last = i == rows.size();
+            if (!statementRows.isEmpty() && (last || keys.contains(target.key().apply(rows.get(i))))) {
+                List<Boolean> results = execute(target, statementRows, ids);
+                long insertedNow = results.stream().filter(Boolean::booleanValue).count();
+                inserted += insertedNow;
+                updated += results.size() - insertedNow;
+                unchanged += statementRows.size() - results.size();
+                statementRows.clear();
+                keys.clear();
+            }
+            if (!last) {
+                statementRows.add(rows.get(i));
+                keys.add(target.key().apply(rows.get(i)));
+            }
+        }
+        return new MergeCounts(inserted, updated, unchanged);
+    }
+
+    private <T> List<Boolean> execute(Target<T> target, List<T> rows, LongSupplier ids) {
+        int width = target.columns().size() + 1;
+        Object[] params = new Object[rows.size() * width];
+        Set<Long> allocated = new HashSet<>();
+        int p = 0;
+        for (T row : rows) {
+            long id = ids.getAsLong();
+            allocated.add(id);
+            params[p++] = id;
+            for (Object value : target.values().apply(row)) {
+                params[p++] = value instanceof Enum<?> e ? e.name() : value;
+            }
+        }
+        return jdbcTemplate.queryForList(buildSql(target, rows.size()), Long.class, params).stream()
+                .map(allocated::contains)
+                .toList();
+    }
+
+    private static String buildSql(Target<?> target, int rowCount) {
+        String placeholders = "(" + String.join(", ", Collections.nCopies(target.columns().size() + 1, "?")) + ")";
+        String values = String.join(", ", Collections.nCopies(rowCount, placeholders));
+        List<String> setColumns = new ArrayList<>(target.updateColumns());
+        if (target.timestampColumn() != null) {
+            setColumns.add(target.timestampColumn());
+        }
+        String updates = setColumns.stream()
+                .map(c -> c + " = EXCLUDED." + c)
+                .collect(Collectors.joining(", "));
+        String current = target.updateColumns().stream()
+                .map(c -> "t." + c)
+                .collect(Collectors.joining(", "));
+        String incoming = target.updateColumns().stream()
+                .map(c -> "EXCLUDED." + c)
+                .collect(Collectors.joining(", "));
+
+        return "INSERT INTO " + target.table() + " AS t (id, " + String.join(", ", target.columns()) + ")"
+                + " VALUES " + values
+                + " ON CONFLICT (" + String.join(", ", target.conflictColumns()) + ")"
+                + " DO UPDATE SET " + updates
+                + " WHERE (" + current + ") IS DISTINCT FROM (" + incoming + ")"
+                + " RETURNING t.id";
+    }
+}
@@ -0,0 +1,205 @@
+package com.costedge.services.imports;
+
+import com.costedge.model.DTO.ImportSummary;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Ingests NDJSON or CSV request bodies record by record on the request thread.
+ * Each record is converted and validated as it arrives and written in fixed-size chunks,
+ * so only one chunk is ever held in memory. Each chunk commits on its own: invalid records
+ * are reported in the summary, while a failing write stops the ingest with the earlier chunks kept.
+ * A record longer than {@code costedge.import.max-record-length} characters is skipped without
+ * being buffered and reported as failed, so one endless line cannot exhaust the heap.
+ */
+@Component
+public class RecordStreamIngester {
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final int maxRecordLength;
+
+    public RecordStreamIngester(ObjectMapper objectMapper, Validator validator,
+                                @Value("${costedge.persistence.batch-size:500}") int batchSize,
+                                @Value("${costedge.import.max-record-length:1048576}") int maxRecordLength) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /** One JSON object per line; blank lines are ignored. */
+    public <T> void ingestNdjson(InputStream body, Class<T> type, Consumer<T> prepare,
+                                 ImportPipeline.BatchSink<T> sink, ImportSummary summary) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(type);
+        Chunker<T> chunker = new Chunker<>(sink, summary);
+
+        LineReader lines = new LineReader(new InputStreamReader(body, StandardCharsets.UTF_8), maxRecordLength);
+        int lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line == LineReader.TOO_LONG) {
+                summary.rowRead();
+                summary.rowFailed(lineNumber, "Line is longer than " + maxRecordLength + " characters");
+                continue;
+            }
+            if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                line = line.substring(1);
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            summary.rowRead();
+            try {
+                T record = reader.readValue(line);
+                prepare.accept(record);
+                validate(record);
+                chunker.add(record);
+            } catch (JsonProcessingException e) {
+                summary.rowFailed(lineNumber, "Invalid JSON: " + e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                summary.rowFailed(lineNumber, e.getMessage());
+            }
+        }
+        chunker.finish();
+    }
+
+    /** Comma separated with a header row, columns in the same order as the Excel template. */
+    public <T> void ingestCsv(InputStream body, Function<List<String>, T> mapper,
+                              ImportPipeline.BatchSink<T> sink, ImportSummary summary) throws IOException {
+        Chunker<T> chunker = new Chunker<>(sink, summary);
+
+        new CsvRowReader(new InputStreamReader(body, StandardCharsets.UTF_8), maxRecordLength).read((rowNumber, cells) -> {
+            summary.rowRead();
+            T record;
+            try {
+                record = mapper.apply(cells);
+            } catch (IllegalArgumentException e) {
+                summary.rowFailed(rowNumber, e.getMessage());
+                return;
+            }
+            chunker.add(record);
+        }, (rowNumber, message) -> {
+            summary.rowRead();
+            summary.rowFailed(rowNumber, message);
+        });
+        chunker.finish();
+    }
+
+    private <T> void validate(T record) {
+        Set<ConstraintViolation<T>> violations = validator.validate(record);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    // Like BufferedReader.readLine, but a line over maxLength comes back as TOO_LONG with its rest skipped
+    private static class LineReader {
+
+        // Compared by identity; a distinct instance so an ordinary empty line is never mistaken for it
+        static final String TOO_LONG = new String("");
+
+        private final Reader in;
+        private final int maxLength;
+        private final char[] buffer = new char[8192];
+        private int length;
+        private int position;
+
+        LineReader(Reader in, int maxLength) {
+            this.in = in;
+            this.maxLength = maxLength;
+        }
+
+        String readLine() throws IOException {
+            // Holds at most maxLength + 1 characters: the line and a '\r' ending it
+            StringBuilder line = new StringBuilder();
+            boolean tooLong = false;
+            boolean empty = true;
+            while (true) {
+                if (position == length) {
+                    length = Math.max(in.read(buffer), 0);
+                    position = 0;
+                    if (length == 0) {
+                        return empty ? null : end(line, tooLong);
+                    }
+                }
+                empty = false;
+                char c = buffer[position++];
+                if (c == '\n') {
+                    return end(line, tooLong);
+                }
+                if (tooLong) {
+                    continue;
+                }
+                if (line.length() > maxLength) {
+                    tooLong = true;
+                    line.setLength(0);
+                } else {
+                    line.append(c);
+                }
+            }
+        }
+
+        private String end(StringBuilder line, boolean tooLong) {
+            if (!line.isEmpty() && line.charAt(line.length() - 1) == '\r') {
+                line.setLength(line.length() - 1);
+            }
+            return tooLong || line.length() > maxLength ? TOO_LONG : line.toString();
+        }
+    }
+
+    private class Chunker<T> {
+
+        private final ImportPipeline.BatchSink<T> sink;
+        private final ImportSummary summary;
+        private List<T> chunk = new ArrayList<>(batchSize);
+
+        Chunker(ImportPipeline.BatchSink<T> sink, ImportSummary summary) {
+            this.sink = sink;
+            this.summary = summary;
+        }
+
+        void add(T record) {
+            chunk.add(record);
+            if (chunk.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            long start = System.nanoTime();
+            summary.rowsSaved(sink.write(chunk));
+            summary.addStageTime("write", System.nanoTime() - start);
+            chunk = new ArrayList<>(batchSize);
+        }
+
+        void finish() {
+            if (!chunk.isEmpty()) {
+                flush();
+            }
+            summary.rowsSaved(sink.finish());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.costedge.services.imports;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out entity ids for writes that bypass Hibernate (COPY, native upserts).
+ * Follows the pooled optimizer contract: each nextval() value V reserves the ids V-49..V,
+ * so ids handed out here never collide with the ones Hibernate allocates from the same sequence.
+ */
+@Component
+public class SequenceIdAllocator {
+
+    // Must match allocationSize on the entities' @SequenceGenerator
+    public static final int BLOCK_SIZE = 50;
+
+    // nextval() calls fetched per round trip
+    private static final int BLOCKS_PER_FETCH = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SequenceIdAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Returns a single-threaded id source for one bulk write. */
+    public LongSupplier idSource(String sequenceName) {
+        return new LongSupplier() {
+            private final Deque<Long> blocks = new ArrayDeque<>();
+            private long next;
+            private long hi = -1;
+
+            @Override
+            public long getAsLong() {
+                if (next > hi) {
+                    if (blocks.isEmpty()) {
+                        blocks.addAll(jdbcTemplate.queryForList(
+                                "SELECT nextval(?) FROM generate_series(1, ?)", Long.class,
+                                sequenceName, BLOCKS_PER_FETCH));
+                    }
+                    hi = blocks.poll();
+                    next = hi - BLOCK_SIZE + 1;
+                }
+                return next++;
+            }
+        };
+    }
+}
@@ -0,0 +1,191 @@
+package com.costedge.services.imports;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.stereotype.Component;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads the first sheet of an .xlsx workbook with the POI event model.
+ * Rows are handed to the caller one at a time, so memory use does not grow with the sheet size.
+ * Numeric cells come through unformatted and date cells as ISO dates (yyyy-MM-dd).
+ */
+@Component
+public class StreamingXlsxReader {
+
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * @param rowNumber 1-based row number as shown in Excel
+         * @param cells     cell values by column index, blank cells as ""
+         */
+        void handleRow(int rowNumber, List<String> cells);
+    }
+
+    public void read(InputStream in, RowHandler handler) throws IOException {
+        // OPCPackage needs random access to the zip; spooling to disk keeps it off the heap
+        Path tempFile = Files.createTempFile("costedge-upload-", ".xlsx");
+        try {
+            Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            read(tempFile, handler);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    public void read(Path file, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg, false);
+            XSSFReader reader = new XSSFReader(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                        styles, strings, new RowCollector(handler), new RawValueFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Failed to read Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Estimates the number of data rows from the sheet's dimension element without parsing the rows.
+     * Returns -1 when the workbook does not declare a dimension.
+     */
+    public long estimateRowCount(Path file) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+            Iterator<InputStream> sheets = new XSSFReader(pkg).getSheetsData();
+            if (!sheets.hasNext()) {
+                return 0;
+            }
+
+            DimensionHandler dimension = new DimensionHandler();
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(dimension);
+                parser.parse(new InputSource(sheet));
+            } catch (StopParsingException ignored) {
+                // dimension found, or the rows started without one
+            }
+            return dimension.rows;
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Failed to read Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    private static class StopParsingException extends SAXException {
+    }
+
+    // Reads <dimension ref="A1:K200001"/>, which precedes <sheetData>, then stops the parse
+    private static class DimensionHandler extends DefaultHandler {
+
+        private long rows = -1;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+                throws SAXException {
+            if ("dimension".equals(localName)) {
+                String ref = attributes.getValue("ref");
+                if (ref != null && ref.contains(":")) {
+                    String[] range = ref.split(":");
+                    int first = new CellReference(range[0]).getRow();
+                    int last = new CellReference(range[1]).getRow();
+                    // minus the header row
+                    rows = Math.max(0, last - first);
+                }
+                throw new StopParsingException();
+            }
+            if ("sheetData".equals(localName)) {
+                throw new StopParsingException();
+            }
+        }
+    }
+
+    // Gathers the cells of each row, skipping the header row and fully blank rows
+    private static class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+
+        private final RowHandler handler;
+        private final List<String> cells = new ArrayList<>();
+        private boolean headerSkipped;
+        private boolean hasValue;
+
+        RowCollector(RowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            cells.clear();
+            hasValue = false;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!headerSkipped) {
+                headerSkipped = true;
+                return;
+            }
+            if (hasValue) {
+                handler.handleRow(rowNum + 1, new ArrayList<>(cells));
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference == null ? cells.size() : new CellReference(cellReference).getCol();
+            while (cells.size() < column) {
+                cells.add("");
+            }
+            String value = formattedValue == null ? "" : formattedValue.trim();
+            cells.add(value);
+            if (!value.isEmpty()) {
+                hasValue = true;
+            }
+        }
+    }
+
+    // Keeps numbers unformatted (no grouping or currency symbols) and renders dates as ISO strings
+    private static class RawValueFormatter extends DataFormatter {
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString,
+                                            boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value, use1904Windowing).toLocalDate().toString();
+            }
+            return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+        }
+    }
+}
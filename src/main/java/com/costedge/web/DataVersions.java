@@ -0,0 +1,61 @@
+package com.costedge.web;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * ETags for list endpoints, taken from the per-table versions in data_versions (V6__data_versions.sql).
+ * A trigger raises a table's version with every committed write, so the version alone tells whether a
+ * client's copy is current; answering If-None-Match needs one primary-key lookup, not the list query.
+ *
+ * <p>The ETag is read before the list query, in the same read-only transaction: the body is then at
+ * least as new as its tag, also when read-only transactions go to a read replica, and a write landing
+ * in between only costs the client one extra download.
+ */
+@Component
+public class DataVersions {
+
+    public static final String BOM_CHANGES = "bom_changebox";
+    public static final String IMPORT_COSTS = "import_costs";
+    public static final String MILESTONES = "project_milestone_costs";
+
+    // Clients may keep the body but must revalidate it on every use
+    public static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public DataVersions(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * A 200 with the ETag and {@link #REVALIDATE}, or null once a 304 has been set on the request
+     * because the client's copy is current; the query then never runs.
+     */
+    public <T> ResponseEntity<T> conditionalGet(WebRequest request, String table, Supplier<T> query) {
+        return readOnlyTransaction.execute(status -> {
+            String etag = etag(table);
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(query.get());
+        });
+    }
+
+    // Strong ETag value (unquoted) for the table's current committed contents
+    private String etag(String table) {
+        Long version = jdbcTemplate.queryForObject(
+                "SELECT version FROM data_versions WHERE table_name = ?", Long.class, table);
+        return table + "-" + version;
+    }
+}
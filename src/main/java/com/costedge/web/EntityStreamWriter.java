@@ -0,0 +1,85 @@
+package com.costedge.web;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes the rows of a repository Stream straight to the response, as NDJSON or as one JSON array.
+ * The query runs in a read-only transaction on the response thread so the JDBC cursor stays open
+ * while rows are written; each entity is detached once written, so memory use does not grow with
+ * the result size and the first rows reach the client before the query has finished.
+ */
+@Component
+public class EntityStreamWriter {
+
+    // Rows written between flushes to the client
+    private static final int FLUSH_EVERY = 500;
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final EntityManager entityManager;
+    private final ObjectWriter writer;
+
+    public EntityStreamWriter(PlatformTransactionManager transactionManager, EntityManager entityManager,
+                              ObjectMapper objectMapper) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.entityManager = entityManager;
+        this.writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /** One JSON object per line (application/x-ndjson). */
+    public <T> StreamingResponseBody ndjson(Supplier<Stream<T>> query) {
+        return out -> write(query, out, false);
+    }
+
+    /** A single JSON array, for clients that cannot read NDJSON. */
+    public <T> StreamingResponseBody jsonArray(Supplier<Stream<T>> query) {
+        return out -> write(query, out, true);
+    }
+
+    private <T> void write(Supplier<Stream<T>> query, OutputStream out, boolean asArray) throws IOException {
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<T> rows = query.get();
+                     SequenceWriter sequence = asArray
+                             ? writer.writeValuesAsArray(out)
+                             : writer.withRootValueSeparator("\n").writeValues(out)) {
+                    int written = 0;
+                    for (Iterator<T> it = rows.iterator(); it.hasNext(); ) {
+                        T row = it.next();
+                        sequence.write(row);
+                        entityManager.detach(row);
+                        if (++written % FLUSH_EVERY == 0) {
+                            sequence.flush();
+                        }
+                    }
+                    if (!asArray && written > 0) {
+                        sequence.flush();
+                        out.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.costedge.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes write requests safe to retry: the first response to a POST/PUT/PATCH/DELETE carrying an
+ * Idempotency-Key header is stored, and later requests with the same key (same user, method and path)
+ * get that response back without running the write again. A repeat that arrives while the first
+ * request is still running waits for its response. A key reused with a different query string or
+ * body is answered with 422 rather than the other request's response (see RequestFingerprint).
+ *
+ * <p>Server errors (5xx) are not stored, so a retry after a failure runs the request again. A body over
+ * {@code max-body-bytes} (such as a bulk save echoing every row) is not kept for the retention period:
+ * only the fingerprint and status are stored, and a repeat gets 409 instead of the body.
+ * Runs after Spring Security's filter chain, so the key is scoped to the authenticated user.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Set<String> WRITE_METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+    private static final int MAX_KEY_LENGTH = 255;
+
+    // Response headers worth replaying; everything else is regenerated by the container
+    private static final List<String> REPLAYED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.LOCATION, HttpHeaders.ETAG, HttpHeaders.CACHE_CONTROL);
+
+    private final IdempotencyStore store;
+    private final Duration inFlightWait;
+    private final int maxBodyBytes;
+
+    public IdempotencyFilter(IdempotencyStore store,
+                             @Value("${costedge.idempotency.in-flight-wait:PT30S}") Duration inFlightWait,
+                             @Value("${costedge.idempotency.max-body-bytes:65536}") int maxBodyBytes) {
+        this.store = store;
+        this.inFlightWait = inFlightWait;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !WRITE_METHODS.contains(request.getMethod())
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || request.getRequestURI().startsWith("/api/auth/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    IDEMPOTENCY_KEY_HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        String key = principal() + " " + request.getMethod() + " " + request.getRequestURI() + " " + idempotencyKey;
+        RequestFingerprint fingerprint;
+        try {
+            fingerprint = RequestFingerprint.start(request);
+        } catch (IllegalStateException | ServletException e) {
+            // Unparseable multipart body (e.g. over the size limit): it fails the same way downstream
+            chain.doFilter(request, response);
+            return;
+        }
+
+        Optional<IdempotencyStore.Claim> claimed = store.claim(key);
+        if (claimed.isEmpty()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            writeError(response, HttpStatus.SERVICE_UNAVAILABLE,
+                    "Too many requests with an " + IDEMPOTENCY_KEY_HEADER + " are in progress, please retry");
+            return;
+        }
+        IdempotencyStore.Claim claim = claimed.get();
+        if (!claim.owner()) {
+            replay(claim, fingerprint.finish(), response);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            chain.doFilter(fingerprint.wrap(), wrapper);
+
+            if (!request.isAsyncStarted() && wrapper.getStatus() < 500) {
+                byte[] body = wrapper.getContentSize() <= maxBodyBytes ? wrapper.getContentAsByteArray() : null;
+                store.complete(claim, new IdempotencyStore.StoredResponse(fingerprint.finish(),
+                        wrapper.getStatus(), replayedHeaders(wrapper), body));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                store.release(key, claim);
+            }
+            wrapper.copyBodyToResponse();
+        }
+    }
+
+    private void replay(IdempotencyStore.Claim claim, String requestFingerprint, HttpServletResponse response)
+            throws IOException {
+        IdempotencyStore.StoredResponse stored;
+        try {
+            stored = claim.response().get(inFlightWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            writeError(response, HttpStatus.CONFLICT,
+                    "A request with this " + IDEMPOTENCY_KEY_HEADER + " is still being processed");
+            return;
+        } catch (ExecutionException e) {
+            writeError(response, HttpStatus.CONFLICT,
+                    "The original request with this " + IDEMPOTENCY_KEY_HEADER + " failed, please retry");
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for the original request", e);
+        }
+        if (!stored.requestFingerprint().equals(requestFingerprint)) {
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "This " + IDEMPOTENCY_KEY_HEADER + " was already used for a different request");
+            return;
+        }
+        if (stored.body() == null) {
+            writeError(response, HttpStatus.CONFLICT, "A request with this " + IDEMPOTENCY_KEY_HEADER
+                    + " was already processed (status " + stored.status() + "); its response was too large to keep");
+            return;
+        }
+
+        response.setStatus(stored.status());
+        stored.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.body().length);
+        response.getOutputStream().write(stored.body());
+    }
+
+    private static Map<String, List<String>> replayedHeaders(HttpServletResponse response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : REPLAYED_HEADERS) {
+            List<String> values = new ArrayList<>(response.getHeaders(name));
+            if (!values.isEmpty()) {
+                headers.put(name, values);
+            }
+        }
+        return headers;
+    }
+
+    private static String principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    private static void writeError(HttpServletResponse response, HttpStatus status, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(("{\"error\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,96 @@
+package com.costedge.web;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * In-memory store of responses to requests sent with an Idempotency-Key.
+ * Bounded by entry count and retention; the oldest entries are dropped first. Entries whose request
+ * is still running are never dropped, since a retry would then run the write a second time: when
+ * the store is full of those, new keys are refused until one finishes.
+ */
+@Component
+public class IdempotencyStore {
+
+    /**
+     * A captured response, replayed as-is for repeated requests, with the fingerprint of the request
+     * that produced it so a key reused for a different request can be told apart. The body is null
+     * when it was too large to keep.
+     */
+    public record StoredResponse(String requestFingerprint, int status, Map<String, List<String>> headers,
+                                 byte[] body) {
+    }
+
+    /** Result of claiming a key: either this request owns it, or it must wait for the owner's response. */
+    public record Claim(boolean owner, CompletableFuture<StoredResponse> response) {
+    }
+
+    private record Entry(Instant createdAt, CompletableFuture<StoredResponse> response) {
+    }
+
+    // Insertion order = creation order, so expired entries are always at the head
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private final Duration retention;
+    private final int maxEntries;
+
+    public IdempotencyStore(@Value("${costedge.idempotency.retention:PT24H}") Duration retention,
+                            @Value("${costedge.idempotency.max-entries:10000}") int maxEntries) {
+        this.retention = retention;
+        this.maxEntries = maxEntries;
+    }
+
+    /** Empty when the key is new but the store is full of requests still in flight. */
+    public synchronized Optional<Claim> claim(String key) {
+        evict();
+        Entry existing = entries.get(key);
+        if (existing != null) {
+            return Optional.of(new Claim(false, existing.response()));
+        }
+        if (entries.size() >= maxEntries) {
+            return Optional.empty();
+        }
+        CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+        entries.put(key, new Entry(Instant.now(), response));
+        return Optional.of(new Claim(true, response));
+    }
+
+    /** Stores the owner's response and releases anyone waiting on it. */
+    public void complete(Claim claim, StoredResponse response) {
+        claim.response().complete(response);
+    }
+
+    /** Forgets the key so the next request with it runs again; waiting requests fail. */
+    public synchronized void release(String key, Claim claim) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.response() == claim.response()) {
+            entries.remove(key);
+        }
+        claim.response().completeExceptionally(new IllegalStateException("Original request did not complete"));
+    }
+
+    // Drops finished entries from the head while they are expired or the store is full; in-flight ones are skipped
+    private void evict() {
+        Instant cutoff = Instant.now().minus(retention);
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (!entry.response().isDone()) {
+                continue;
+            }
+            if (entry.createdAt().isBefore(cutoff) || entries.size() >= maxEntries) {
+                it.remove();
+            } else {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.costedge.web;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.Part;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SHA-256 over a request's query string and body, so a repeated Idempotency-Key can be checked
+ * against the request it was first used for. The body is never buffered: a raw body is hashed as
+ * the application reads it through {@link #wrap}, and whatever it leaves unread is hashed by
+ * {@link #finish}. Multipart parts and form parameters are parsed by the container outside the
+ * input stream, so those are hashed up front instead (parts are spooled to disk by the container).
+ */
+final class RequestFingerprint {
+
+    private final MessageDigest digest;
+    private final HttpServletRequest request;
+    private final boolean rawBody;
+    private ServletInputStream bodyStream;
+
+    private RequestFingerprint(HttpServletRequest request) {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        this.request = request;
+        this.rawBody = !isMultipart(request) && !isForm(request);
+    }
+
+    static RequestFingerprint start(HttpServletRequest request) throws IOException, ServletException {
+        RequestFingerprint fingerprint = new RequestFingerprint(request);
+        fingerprint.update(String.valueOf(request.getQueryString()));
+        if (isMultipart(request)) {
+            for (Part part : request.getParts()) {
+                fingerprint.update(part.getName());
+                fingerprint.update(String.valueOf(part.getSubmittedFileName()));
+                try (InputStream in = part.getInputStream()) {
+                    fingerprint.updateFrom(in);
+                }
+            }
+        } else if (isForm(request)) {
+            Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+            parameters.forEach((name, values) -> {
+                fingerprint.update(name);
+                for (String value : values) {
+                    fingerprint.update(value);
+                }
+            });
+        }
+        return fingerprint;
+    }
+
+    /** The request to hand down the filter chain: a raw body is hashed as it is read. */
+    HttpServletRequest wrap() {
+        if (!rawBody) {
+            return request;
+        }
+        return new HttpServletRequestWrapper(request) {
+            @Override
+            public ServletInputStream getInputStream() throws IOException {
+                return bodyStream();
+            }
+
+            @Override
+            public BufferedReader getReader() throws IOException {
+                String encoding = getCharacterEncoding();
+                return new BufferedReader(new InputStreamReader(bodyStream(),
+                        encoding != null ? encoding : StandardCharsets.UTF_8.name()));
+            }
+        };
+    }
+
+    /** Hashes the rest of a raw body and returns the fingerprint as hex. */
+    String finish() throws IOException {
+        if (rawBody) {
+            // Reading through the digesting stream hashes what it returns
+            bodyStream().transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private ServletInputStream bodyStream() throws IOException {
+        if (bodyStream == null) {
+            bodyStream = new DigestingInputStream(request.getInputStream());
+        }
+        return bodyStream;
+    }
+
+    // Length-prefixed, so ("ab", "c") and ("a", "bc") differ
+    private void update(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private void updateFrom(InputStream in) throws IOException {
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+    }
+
+    private static boolean isMultipart(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase().startsWith("multipart/");
+    }
+
+    private static boolean isForm(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null
+                && contentType.toLowerCase().startsWith(MediaType.APPLICATION_FORM_URLENCODED_VALUE);
+    }
+
+    private class DigestingInputStream extends ServletInputStream {
+
+        private final ServletInputStream in;
+
+        DigestingInputStream(ServletInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) {
+                digest.update((byte) b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0) {
+                digest.update(b, off, read);
+            }
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return in.isFinished();
+        }
+
+        @Override
+        public boolean isReady() {
+            return in.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            in.setReadListener(readListener);
+        }
+    }
+}
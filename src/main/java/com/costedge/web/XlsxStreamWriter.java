@@ -0,0 +1,171 @@
+package com.costedge.web;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes the rows of a repository Stream to the response as an .xlsx workbook. Rows go through
+ * POI's SXSSFWorkbook, which keeps only the last {@code costedge.export.row-window} rows in memory
+ * and spills older ones to a compressed temp file, so memory use does not grow with the row count.
+ * As with {@link EntityStreamWriter}, the query runs in a read-only transaction on the response
+ * thread; pass a Stream of projections (not entities) so the persistence context stays empty.
+ */
+@Component
+public class XlsxStreamWriter {
+
+    public static final MediaType XLSX =
+            MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    // A sheet holds at most this many data rows under its header; further rows continue on a new sheet
+    private static final int ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+
+    /** One spreadsheet column: its header and how to read the cell value from a row. */
+    public record Column<T>(String header, Function<T, ?> value) {
+    }
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final int rowWindow;
+
+    public XlsxStreamWriter(PlatformTransactionManager transactionManager,
+                            @Value("${costedge.export.row-window:100}") int rowWindow) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rowWindow = rowWindow;
+    }
+
+    /** A 200 response that downloads the rows as {@code fileName}.xlsx, one sheet named {@code sheetName}. */
+    public <T> ResponseEntity<StreamingResponseBody> download(String fileName, String sheetName,
+                                                              List<Column<T>> columns, Supplier<Stream<T>> query) {
+        return ResponseEntity.ok()
+                .contentType(XLSX)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName + ".xlsx").build().toString())
+                .body(out -> write(sheetName, columns, query, out));
+    }
+
+    private <T> void write(String sheetName, List<Column<T>> columns, Supplier<Stream<T>> query,
+                           OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        workbook.setCompressTempFiles(true);
+        try {
+            Styles styles = new Styles(workbook);
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<T> rows = query.get()) {
+                    SXSSFSheet sheet = newSheet(workbook, sheetName, columns, styles);
+                    int rowNum = 0;
+                    for (Iterator<T> it = rows.iterator(); it.hasNext(); ) {
+                        if (rowNum == ROWS_PER_SHEET) {
+                            setColumnWidths(sheet, columns);
+                            sheet = newSheet(workbook, sheetName, columns, styles);
+                            rowNum = 0;
+                        }
+                        writeRow(sheet.createRow(++rowNum), columns, it.next(), styles);
+                    }
+                    setColumnWidths(sheet, columns);
+                }
+            });
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static <T> SXSSFSheet newSheet(SXSSFWorkbook workbook, String sheetName, List<Column<T>> columns,
+                                           Styles styles) {
+        int number = workbook.getNumberOfSheets();
+        SXSSFSheet sheet = workbook.createSheet(number == 0 ? sheetName : sheetName + " (" + (number + 1) + ")");
+        Row header = sheet.createRow(0);
+        for (int c = 0; c < columns.size(); c++) {
+            Cell cell = header.createCell(c);
+            cell.setCellValue(columns.get(c).header());
+            cell.setCellStyle(styles.header);
+        }
+        sheet.createFreezePane(0, 1);
+        return sheet;
+    }
+
+    // Sized from the headers, since autosizing would have to track every value written. Set once the
+    // sheet's rows are written: while column definitions exist, POI looks them up for every new cell.
+    private static <T> void setColumnWidths(SXSSFSheet sheet, List<Column<T>> columns) {
+        for (int c = 0; c < columns.size(); c++) {
+            sheet.setColumnWidth(c, Math.max(12, columns.get(c).header().length() + 2) * 256);
+        }
+    }
+
+    private static <T> void writeRow(Row row, List<Column<T>> columns, T item, Styles styles) {
+        for (int c = 0; c < columns.size(); c++) {
+            Object value = columns.get(c).value().apply(item);
+            if (value == null) {
+                continue;
+            }
+            Cell cell = row.createCell(c);
+            if (value instanceof BigDecimal decimal) {
+                cell.setCellValue(decimal.doubleValue());
+                cell.setCellStyle(styles.decimal);
+            } else if (value instanceof Number number) {
+                cell.setCellValue(number.doubleValue());
+            } else if (value instanceof LocalDate date) {
+                cell.setCellValue(date);
+                cell.setCellStyle(styles.date);
+            } else if (value instanceof LocalDateTime dateTime) {
+                cell.setCellValue(dateTime);
+                cell.setCellStyle(styles.dateTime);
+            } else if (value instanceof Enum<?> constant) {
+                cell.setCellValue(constant.name());
+            } else {
+                cell.setCellValue(value.toString());
+            }
+        }
+    }
+
+    // Cell styles are workbook-wide; created once per workbook and shared by every cell
+    private static final class Styles {
+
+        final CellStyle header;
+        final CellStyle decimal;
+        final CellStyle date;
+        final CellStyle dateTime;
+
+        Styles(SXSSFWorkbook workbook) {
+            Font bold = workbook.createFont();
+            bold.setBold(true);
+            header = workbook.createCellStyle();
+            header.setFont(bold);
+            decimal = formatted(workbook, "#,##0.00");
+            date = formatted(workbook, "yyyy-mm-dd");
+            dateTime = formatted(workbook, "yyyy-mm-dd hh:mm:ss");
+        }
+
+        private static CellStyle formatted(SXSSFWorkbook workbook, String format) {
+            CellStyle style = workbook.createCellStyle();
+            style.setDataFormat(workbook.createDataFormat().getFormat(format));
+            return style;
+        }
+    }
+}
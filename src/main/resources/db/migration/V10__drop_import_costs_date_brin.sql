@@ -0,0 +1,3 @@
+-- Nothing reads import_costs by date (ImportCostRepository has no date predicate and there is no
+-- import cost filter endpoint), so the BRIN index from V3 only added work to every COPY and merge import.
+DROP INDEX IF EXISTS brin_import_costs_date;
@@ -0,0 +1,152 @@
+-- Schema as Hibernate's ddl-auto=update left it before migrations were introduced.
+-- Everything is IF NOT EXISTS: databases created by ddl-auto are baselined at version 0 (see
+-- spring.flyway.baseline-version) and run this script too, which then only fills in what is missing.
+-- CREATE TABLE IF NOT EXISTS skips the inline constraints on those databases, so the unique keys the
+-- merge imports' ON CONFLICT clauses rely on are added separately at the end.
+
+CREATE SEQUENCE IF NOT EXISTS bom_changebox_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS import_costs_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS bom_changebox (
+    id             bigint       NOT NULL,
+    model          varchar(100) NOT NULL,
+    part_name      varchar(255) NOT NULL,
+    part_number    varchar(100) NOT NULL,
+    old_cost       numeric(10,2) NOT NULL,
+    new_cost       numeric(10,2) NOT NULL,
+    impact         numeric(10,2),
+    supplier       varchar(255) NOT NULL,
+    effective_date date         NOT NULL,
+    change_type    varchar(255) NOT NULL CHECK (change_type IN ('NEW_PART','REDUCTION','ADDITION')),
+    status         varchar(255) NOT NULL CHECK (status IN ('PENDING','APPROVED','REJECTED')),
+    department     varchar(100) NOT NULL,
+    remarks        varchar(500),
+    quantity       integer      NOT NULL CHECK (quantity >= 1),
+    document       varchar(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_bom_change_part_model_date UNIQUE (part_number, model, effective_date)
+);
+
+CREATE TABLE IF NOT EXISTS import_costs (
+    id          bigint       NOT NULL,
+    shipment_id varchar(255) NOT NULL UNIQUE,
+    date        date         NOT NULL,
+    supplier    varchar(255) NOT NULL,
+    model       varchar(255) NOT NULL,
+    part_name   varchar(255) NOT NULL,
+    quantity    integer      NOT NULL CHECK (quantity >= 1),
+    freight     numeric(10,2),
+    duty        numeric(10,2),
+    insurance   numeric(10,2),
+    document    varchar(255),
+    created_at  timestamp(6),
+    updated_at  timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS import_uploads (
+    id             bigint GENERATED BY DEFAULT AS IDENTITY,
+    job_id         varchar(36)  NOT NULL,
+    import_type    varchar(50)  NOT NULL,
+    mode           varchar(20),
+    content_hash   varchar(64)  NOT NULL,
+    file_name      varchar(255),
+    status         varchar(20)  NOT NULL,
+    rows_read      bigint,
+    rows_saved     bigint,
+    rows_inserted  bigint,
+    rows_updated   bigint,
+    rows_unchanged bigint,
+    rows_failed    bigint,
+    error          varchar(1000),
+    errors         text,
+    created_at     timestamp(6) with time zone NOT NULL,
+    finished_at    timestamp(6) with time zone,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS project_milestone_costs (
+    id                       bigint GENERATED BY DEFAULT AS IDENTITY,
+    project_id               integer       NOT NULL,
+    project_name             varchar(255)  NOT NULL,
+    milestone                varchar(255)  NOT NULL,
+    milestone_type           varchar(255)  NOT NULL,
+    category                 varchar(255)  NOT NULL,
+    department               varchar(255)  NOT NULL,
+    part_number              varchar(255),
+    supplier_name            varchar(255),
+    currency                 varchar(3)    NOT NULL,
+    planned                  numeric(15,2) NOT NULL,
+    actual                   numeric(15,2) NOT NULL,
+    variance                 numeric(15,2),
+    project_quantity         numeric(15,2) NOT NULL,
+    estimated_savings        numeric(15,2),
+    target_percent           numeric(5,2),
+    current_percent          numeric(5,2),
+    date                     date          NOT NULL,
+    expected_completion_date date          NOT NULL,
+    reason                   varchar(1000) NOT NULL,
+    remarks                  varchar(1000),
+    documents_links          varchar(2000),
+    status                   varchar(255)  NOT NULL,
+    cost_reduction_status    varchar(255),
+    rejection_reason         varchar(1000),
+    approved_by              varchar(255),
+    approved_at              timestamp(6),
+    last_updated_by          varchar(255),
+    created_at               timestamp(6),
+    updated_at               timestamp(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id       bigint GENERATED BY DEFAULT AS IDENTITY,
+    username varchar(255),
+    password varchar(255),
+    role     varchar(255) CHECK (role IN ('DATAENTRY','MANAGER')),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_bom_change_effective_date_id ON bom_changebox (effective_date, id);
+CREATE INDEX IF NOT EXISTS idx_import_uploads_type_hash ON import_uploads (import_type, content_hash, created_at);
+
+-- Unique keys of the merge imports (ON CONFLICT (part_number, model, effective_date) and ON CONFLICT
+-- (shipment_id)), added where the table came from ddl-auto without them. Any unique constraint on the
+-- same columns will do. Existing duplicates stop the migration with an example instead of being dropped.
+DO $$
+DECLARE
+    duplicate record;
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint c
+                   WHERE c.conrelid = 'bom_changebox'::regclass AND c.contype IN ('p', 'u')
+                     AND (SELECT array_agg(a.attname::text ORDER BY a.attname) FROM pg_attribute a
+                          WHERE a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey))
+                         = ARRAY['effective_date', 'model', 'part_number']) THEN
+        SELECT part_number, model, effective_date, count(*) AS copies INTO duplicate
+        FROM bom_changebox GROUP BY part_number, model, effective_date HAVING count(*) > 1 LIMIT 1;
+        IF FOUND THEN
+            RAISE EXCEPTION 'bom_changebox has several rows for the same part_number, model and effective_date '
+                            '(e.g. % rows for %, %, %); merge or delete them before migrating',
+                            duplicate.copies, duplicate.part_number, duplicate.model, duplicate.effective_date
+                USING HINT = 'SELECT part_number, model, effective_date, count(*) FROM bom_changebox '
+                             'GROUP BY 1, 2, 3 HAVING count(*) > 1';
+        END IF;
+        ALTER TABLE bom_changebox ADD CONSTRAINT uk_bom_change_part_model_date UNIQUE (part_number, model, effective_date);
+    END IF;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint c
+                   WHERE c.conrelid = 'import_costs'::regclass AND c.contype IN ('p', 'u')
+                     AND (SELECT array_agg(a.attname::text) FROM pg_attribute a
+                          WHERE a.attrelid = c.conrelid AND a.attnum = ANY (c.conkey))
+                         = ARRAY['shipment_id']) THEN
+        SELECT shipment_id, count(*) AS copies INTO duplicate
+        FROM import_costs GROUP BY shipment_id HAVING count(*) > 1 LIMIT 1;
+        IF FOUND THEN
+            RAISE EXCEPTION 'import_costs has several rows for the same shipment_id (e.g. % rows for %); '
+                            'merge or delete them before migrating', duplicate.copies, duplicate.shipment_id
+                USING HINT = 'SELECT shipment_id, count(*) FROM import_costs GROUP BY 1 HAVING count(*) > 1';
+        END IF;
+        ALTER TABLE import_costs ADD CONSTRAINT uk_import_costs_shipment_id UNIQUE (shipment_id);
+    END IF;
+END
+$$;
@@ -0,0 +1,4 @@
+-- Rows inserted while ids were IDENTITY-generated are not known to the id sequences.
+-- Move each sequence past the current max id (never backwards) so pooled allocation cannot collide.
+SELECT setval('bom_changebox_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM bom_changebox), (SELECT last_value FROM bom_changebox_seq)));
+SELECT setval('import_costs_seq', GREATEST((SELECT COALESCE(MAX(id), 1) FROM import_costs), (SELECT last_value FROM import_costs_seq)));
@@ -0,0 +1,32 @@
+-- Indexes behind the repository query methods.
+
+-- BOM change lists filter on one column and page newest first by (effective_date, id), so each
+-- composite index serves the filter and the keyset order in one range scan.
+-- findByPartNumber uses the leading column of uk_bom_change_part_model_date.
+CREATE INDEX IF NOT EXISTS idx_bom_change_status_date_id ON bom_changebox (status, effective_date, id);
+CREATE INDEX IF NOT EXISTS idx_bom_change_model_date_id ON bom_changebox (model, effective_date, id);
+CREATE INDEX IF NOT EXISTS idx_bom_change_supplier_date_id ON bom_changebox (supplier, effective_date, id);
+CREATE INDEX IF NOT EXISTS idx_bom_change_department_date_id ON bom_changebox (department, effective_date, id);
+-- findByImpactGreaterThan / findByImpactLessThan (high-impact and cost-savings reports)
+CREATE INDEX IF NOT EXISTS idx_bom_change_impact ON bom_changebox (impact);
+
+-- Trigram indexes behind BOM change search (BomChangeRepository.searchBomChanges), so substring
+-- ILIKE matches are index scans instead of a sequential scan of the whole table.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_bom_change_part_name_trgm ON bom_changebox USING gin (part_name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_bom_change_part_number_trgm ON bom_changebox USING gin (part_number gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_bom_change_supplier_trgm ON bom_changebox USING gin (supplier gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_bom_change_model_trgm ON bom_changebox USING gin (model gin_trgm_ops);
+
+-- Import costs arrive in roughly shipment-date order, so a BRIN index on date stays a few pages
+-- in size while still letting date-range scans skip most of the table.
+CREATE INDEX IF NOT EXISTS idx_import_costs_supplier ON import_costs (supplier);
+CREATE INDEX IF NOT EXISTS brin_import_costs_date ON import_costs USING brin (date);
+
+-- Milestone lookups by project and approval status
+CREATE INDEX IF NOT EXISTS idx_milestone_project_id ON project_milestone_costs (project_id);
+CREATE INDEX IF NOT EXISTS idx_milestone_project_name ON project_milestone_costs (project_name);
+CREATE INDEX IF NOT EXISTS idx_milestone_status ON project_milestone_costs (status);
+
+-- Every authenticated request loads its user by name
+CREATE INDEX IF NOT EXISTS idx_users_username ON users (username);
@@ -0,0 +1,121 @@
+-- Pre-aggregated BOM change counts and impact per (model, change type, status, supplier, month).
+-- The summary and stats endpoints read this instead of grouping the whole of bom_changebox.
+-- Kept current by statement-level triggers in the writing transaction, so every path (JPA saves,
+-- COPY imports, merge upserts, deletes) updates it once per statement, not once per row.
+CREATE TABLE IF NOT EXISTS bom_change_rollup (
+    model         varchar(100) NOT NULL,
+    change_type   varchar(255) NOT NULL,
+    status        varchar(255) NOT NULL,
+    supplier      varchar(255) NOT NULL,
+    month         date         NOT NULL,
+    change_count  bigint       NOT NULL,
+    -- rows with a non-null impact, the divisor for average impact
+    impact_count  bigint       NOT NULL,
+    total_impact  numeric(18,2) NOT NULL,
+    PRIMARY KEY (model, change_type, status, supplier, month)
+);
+
+CREATE OR REPLACE FUNCTION bom_change_rollup_apply() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    -- Signed per-group deltas; groups are written in key order so concurrent writers lock rows in the same order
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO bom_change_rollup AS r
+        SELECT model, change_type, status, supplier, date_trunc('month', effective_date)::date,
+               count(*), count(impact), coalesce(sum(impact), 0)
+        FROM new_rows
+        GROUP BY 1, 2, 3, 4, 5
+        ORDER BY 1, 2, 3, 4, 5
+        ON CONFLICT (model, change_type, status, supplier, month) DO UPDATE
+            SET change_count = r.change_count + excluded.change_count,
+                impact_count = r.impact_count + excluded.impact_count,
+                total_impact = r.total_impact + excluded.total_impact;
+        RETURN NULL;
+    END IF;
+
+    IF TG_OP = 'UPDATE' THEN
+        INSERT INTO bom_change_rollup AS r
+        SELECT model, change_type, status, supplier, month, sum(n), sum(ni), coalesce(sum(impact), 0)
+        FROM (SELECT model, change_type, status, supplier, date_trunc('month', effective_date)::date AS month,
+                     1 AS n, (impact IS NOT NULL)::int AS ni, impact
+              FROM new_rows
+              UNION ALL
+              SELECT model, change_type, status, supplier, date_trunc('month', effective_date)::date,
+                     -1, -(impact IS NOT NULL)::int, -impact
+              FROM old_rows) d
+        GROUP BY 1, 2, 3, 4, 5
+        -- edits that leave a group's figures unchanged (remarks, documents...) write nothing
+        HAVING sum(n) <> 0 OR sum(ni) <> 0 OR coalesce(sum(impact), 0) <> 0
+        ORDER BY 1, 2, 3, 4, 5
+        ON CONFLICT (model, change_type, status, supplier, month) DO UPDATE
+            SET change_count = r.change_count + excluded.change_count,
+                impact_count = r.impact_count + excluded.impact_count,
+                total_impact = r.total_impact + excluded.total_impact;
+    ELSE
+        INSERT INTO bom_change_rollup AS r
+        SELECT model, change_type, status, supplier, date_trunc('month', effective_date)::date,
+               -count(*), -count(impact), -coalesce(sum(impact), 0)
+        FROM old_rows
+        GROUP BY 1, 2, 3, 4, 5
+        ORDER BY 1, 2, 3, 4, 5
+        ON CONFLICT (model, change_type, status, supplier, month) DO UPDATE
+            SET change_count = r.change_count + excluded.change_count,
+                impact_count = r.impact_count + excluded.impact_count,
+                total_impact = r.total_impact + excluded.total_impact;
+    END IF;
+
+    -- Drop groups that no longer have any rows
+    DELETE FROM bom_change_rollup r
+    USING (SELECT DISTINCT model, change_type, status, supplier, date_trunc('month', effective_date)::date AS month
+           FROM old_rows) k
+    WHERE r.model = k.model AND r.change_type = k.change_type AND r.status = k.status
+      AND r.supplier = k.supplier AND r.month = k.month AND r.change_count = 0;
+    RETURN NULL;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION bom_change_rollup_truncate() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    TRUNCATE bom_change_rollup;
+    RETURN NULL;
+END
+$$;
+
+-- Repair: recomputes the rollup from bom_changebox. Blocks writers to the fact table while it runs
+-- so no change can slip between the scan and the swap. Returns the number of groups written.
+CREATE OR REPLACE FUNCTION rebuild_bom_change_rollup() RETURNS bigint
+LANGUAGE plpgsql AS $$
+DECLARE
+    groups bigint;
+BEGIN
+    LOCK TABLE bom_changebox IN SHARE MODE;
+    DELETE FROM bom_change_rollup;
+    INSERT INTO bom_change_rollup
+    SELECT model, change_type, status, supplier, date_trunc('month', effective_date)::date,
+           count(*), count(impact), coalesce(sum(impact), 0)
+    FROM bom_changebox
+    GROUP BY 1, 2, 3, 4, 5;
+    GET DIAGNOSTICS groups = ROW_COUNT;
+    RETURN groups;
+END
+$$;
+
+DROP TRIGGER IF EXISTS bom_change_rollup_insert ON bom_changebox;
+DROP TRIGGER IF EXISTS bom_change_rollup_update ON bom_changebox;
+DROP TRIGGER IF EXISTS bom_change_rollup_delete ON bom_changebox;
+DROP TRIGGER IF EXISTS bom_change_rollup_truncate ON bom_changebox;
+
+CREATE TRIGGER bom_change_rollup_insert AFTER INSERT ON bom_changebox
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_rollup_apply();
+CREATE TRIGGER bom_change_rollup_update AFTER UPDATE ON bom_changebox
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_rollup_apply();
+CREATE TRIGGER bom_change_rollup_delete AFTER DELETE ON bom_changebox
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_rollup_apply();
+CREATE TRIGGER bom_change_rollup_truncate AFTER TRUNCATE ON bom_changebox
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_rollup_truncate();
+
+SELECT rebuild_bom_change_rollup();
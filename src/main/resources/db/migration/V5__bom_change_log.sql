@@ -0,0 +1,45 @@
+-- Ids of BOM changes written by each transaction, so in-process caches (BomChangeAnalytics) can
+-- re-read just the rows that changed. txid lets a reader resume from its last snapshot's xmin:
+-- every transaction below it has finished, so no late commit is skipped.
+CREATE TABLE IF NOT EXISTS bom_change_log (
+    txid          xid8        NOT NULL DEFAULT pg_current_xact_id(),
+    -- null marks a TRUNCATE: readers reload everything
+    bom_change_id bigint,
+    logged_at     timestamptz NOT NULL DEFAULT now()
+);
+CREATE INDEX IF NOT EXISTS idx_bom_change_log_txid ON bom_change_log (txid);
+-- Append-only, so logged_at follows physical order; pruning by age only needs a BRIN index
+CREATE INDEX IF NOT EXISTS brin_bom_change_log_logged_at ON bom_change_log USING brin (logged_at);
+
+CREATE OR REPLACE FUNCTION bom_change_log_apply() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO bom_change_log (bom_change_id) SELECT id FROM new_rows;
+    ELSIF TG_OP = 'UPDATE' THEN
+        INSERT INTO bom_change_log (bom_change_id) SELECT id FROM new_rows UNION SELECT id FROM old_rows;
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO bom_change_log (bom_change_id) SELECT id FROM old_rows;
+    ELSE
+        INSERT INTO bom_change_log (bom_change_id) VALUES (NULL);
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+DROP TRIGGER IF EXISTS bom_change_log_insert ON bom_changebox;
+DROP TRIGGER IF EXISTS bom_change_log_update ON bom_changebox;
+DROP TRIGGER IF EXISTS bom_change_log_delete ON bom_changebox;
+DROP TRIGGER IF EXISTS bom_change_log_truncate ON bom_changebox;
+
+CREATE TRIGGER bom_change_log_insert AFTER INSERT ON bom_changebox
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_log_apply();
+CREATE TRIGGER bom_change_log_update AFTER UPDATE ON bom_changebox
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_log_apply();
+CREATE TRIGGER bom_change_log_delete AFTER DELETE ON bom_changebox
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_log_apply();
+CREATE TRIGGER bom_change_log_truncate AFTER TRUNCATE ON bom_changebox
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_log_apply();
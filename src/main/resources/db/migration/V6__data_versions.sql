@@ -0,0 +1,50 @@
+-- A version number per table, raised by every statement that changes rows in it. The bump is part of
+-- the writing transaction, so readers only see it once the write commits, and the list endpoints
+-- send it as their ETag: a client holding the current version gets 304 without the table being read.
+CREATE TABLE IF NOT EXISTS data_versions (
+    table_name text   PRIMARY KEY,
+    version    bigint NOT NULL DEFAULT 0
+);
+INSERT INTO data_versions (table_name)
+VALUES ('bom_changebox'), ('import_costs'), ('project_milestone_costs')
+ON CONFLICT (table_name) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION data_version_bump() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    -- Statements that matched no rows (e.g. an upsert that changed nothing) leave the version alone
+    IF TG_OP = 'DELETE' THEN
+        IF NOT EXISTS (SELECT 1 FROM old_rows) THEN
+            RETURN NULL;
+        END IF;
+    ELSIF TG_OP IN ('INSERT', 'UPDATE') THEN
+        IF NOT EXISTS (SELECT 1 FROM new_rows) THEN
+            RETURN NULL;
+        END IF;
+    END IF;
+    UPDATE data_versions SET version = version + 1 WHERE table_name = TG_TABLE_NAME;
+    RETURN NULL;
+END
+$$;
+
+DO $$
+DECLARE
+    t text;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['bom_changebox', 'import_costs', 'project_milestone_costs'] LOOP
+        EXECUTE format('DROP TRIGGER IF EXISTS data_version_insert ON %I', t);
+        EXECUTE format('DROP TRIGGER IF EXISTS data_version_update ON %I', t);
+        EXECUTE format('DROP TRIGGER IF EXISTS data_version_delete ON %I', t);
+        EXECUTE format('DROP TRIGGER IF EXISTS data_version_truncate ON %I', t);
+        EXECUTE format('CREATE TRIGGER data_version_insert AFTER INSERT ON %I REFERENCING NEW TABLE AS new_rows '
+                       'FOR EACH STATEMENT EXECUTE FUNCTION data_version_bump()', t);
+        EXECUTE format('CREATE TRIGGER data_version_update AFTER UPDATE ON %I '
+                       'REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows '
+                       'FOR EACH STATEMENT EXECUTE FUNCTION data_version_bump()', t);
+        EXECUTE format('CREATE TRIGGER data_version_delete AFTER DELETE ON %I REFERENCING OLD TABLE AS old_rows '
+                       'FOR EACH STATEMENT EXECUTE FUNCTION data_version_bump()', t);
+        EXECUTE format('CREATE TRIGGER data_version_truncate AFTER TRUNCATE ON %I '
+                       'FOR EACH STATEMENT EXECUTE FUNCTION data_version_bump()', t);
+    END LOOP;
+END
+$$;
@@ -0,0 +1,203 @@
+-- Range-partitions bom_changebox by effective_date, one partition per quarter (bom_changebox_pYYYY_qN),
+-- so date-range reads scan only the quarters they cover and vacuum, indexes and the recent quarters
+-- stay the same size as history grows. Quarters rather than months keep the partition count, and
+-- with it the planning cost of reads without a date range (such as the newest-first pages), low.
+-- Rows whose quarter has no partition yet land in bom_changebox_default until
+-- create_bom_change_partitions moves them out. Quarters hold whole months of the rollup's month
+-- column, so archiving a quarter removes whole rollup groups.
+
+ALTER TABLE bom_changebox RENAME TO bom_changebox_unpartitioned;
+
+CREATE TABLE bom_changebox (
+    id             bigint       NOT NULL,
+    model          varchar(100) NOT NULL,
+    part_name      varchar(255) NOT NULL,
+    part_number    varchar(100) NOT NULL,
+    old_cost       numeric(10,2) NOT NULL,
+    new_cost       numeric(10,2) NOT NULL,
+    impact         numeric(10,2),
+    supplier       varchar(255) NOT NULL,
+    effective_date date         NOT NULL,
+    change_type    varchar(255) NOT NULL CHECK (change_type IN ('NEW_PART','REDUCTION','ADDITION')),
+    status         varchar(255) NOT NULL CHECK (status IN ('PENDING','APPROVED','REJECTED')),
+    department     varchar(100) NOT NULL,
+    remarks        varchar(500),
+    quantity       integer      NOT NULL CHECK (quantity >= 1),
+    document       varchar(255)
+) PARTITION BY RANGE (effective_date);
+
+CREATE TABLE bom_changebox_default PARTITION OF bom_changebox DEFAULT;
+
+-- A partition for every quarter that has rows; indexes are built after the copy
+DO $$
+DECLARE
+    quarter date;
+BEGIN
+    FOR quarter IN SELECT DISTINCT date_trunc('quarter', effective_date)::date FROM bom_changebox_unpartitioned ORDER BY 1 LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF bom_changebox FOR VALUES FROM (%L) TO (%L)',
+                       'bom_changebox_p' || to_char(quarter, 'YYYY_"q"Q'), quarter, quarter + interval '3 months');
+    END LOOP;
+END
+$$;
+
+-- Same rows and ids, so bom_change_rollup, bom_change_log readers and data_versions stay valid
+INSERT INTO bom_changebox (id, model, part_name, part_number, old_cost, new_cost, impact, supplier, effective_date,
+                           change_type, status, department, remarks, quantity, document)
+SELECT id, model, part_name, part_number, old_cost, new_cost, impact, supplier, effective_date,
+       change_type, status, department, remarks, quantity, document
+FROM bom_changebox_unpartitioned;
+
+-- Takes its triggers, constraints and indexes with it, freeing their names
+DROP TABLE bom_changebox_unpartitioned;
+
+-- Unique constraints on a partitioned table must include the partition key. Ids still come from
+-- bom_changebox_seq and stay unique; by-id lookups use the leading column of the primary key.
+ALTER TABLE bom_changebox ADD PRIMARY KEY (id, effective_date);
+ALTER TABLE bom_changebox ADD CONSTRAINT uk_bom_change_part_model_date UNIQUE (part_number, model, effective_date);
+
+-- As in V1 and V3, now built per partition
+CREATE INDEX idx_bom_change_effective_date_id ON bom_changebox (effective_date, id);
+CREATE INDEX idx_bom_change_status_date_id ON bom_changebox (status, effective_date, id);
+CREATE INDEX idx_bom_change_model_date_id ON bom_changebox (model, effective_date, id);
+CREATE INDEX idx_bom_change_supplier_date_id ON bom_changebox (supplier, effective_date, id);
+CREATE INDEX idx_bom_change_department_date_id ON bom_changebox (department, effective_date, id);
+CREATE INDEX idx_bom_change_impact ON bom_changebox (impact);
+CREATE INDEX idx_bom_change_part_name_trgm ON bom_changebox USING gin (part_name gin_trgm_ops);
+CREATE INDEX idx_bom_change_part_number_trgm ON bom_changebox USING gin (part_number gin_trgm_ops);
+CREATE INDEX idx_bom_change_supplier_trgm ON bom_changebox USING gin (supplier gin_trgm_ops);
+CREATE INDEX idx_bom_change_model_trgm ON bom_changebox USING gin (model gin_trgm_ops);
+
+-- Statement triggers from V4-V6. On the partitioned table they fire once per statement against
+-- bom_changebox, with every partition's rows in the transition tables; statements run directly
+-- against a partition do not fire them.
+CREATE TRIGGER bom_change_rollup_insert AFTER INSERT ON bom_changebox
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_rollup_apply();
+CREATE TRIGGER bom_change_rollup_update AFTER UPDATE ON bom_changebox
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_rollup_apply();
+CREATE TRIGGER bom_change_rollup_delete AFTER DELETE ON bom_changebox
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_rollup_apply();
+CREATE TRIGGER bom_change_rollup_truncate AFTER TRUNCATE ON bom_changebox
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_rollup_truncate();
+
+CREATE TRIGGER bom_change_log_insert AFTER INSERT ON bom_changebox
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_log_apply();
+CREATE TRIGGER bom_change_log_update AFTER UPDATE ON bom_changebox
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_log_apply();
+CREATE TRIGGER bom_change_log_delete AFTER DELETE ON bom_changebox
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_log_apply();
+CREATE TRIGGER bom_change_log_truncate AFTER TRUNCATE ON bom_changebox
+    FOR EACH STATEMENT EXECUTE FUNCTION bom_change_log_apply();
+
+CREATE TRIGGER data_version_insert AFTER INSERT ON bom_changebox REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION data_version_bump();
+CREATE TRIGGER data_version_update AFTER UPDATE ON bom_changebox
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION data_version_bump();
+CREATE TRIGGER data_version_delete AFTER DELETE ON bom_changebox REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION data_version_bump();
+CREATE TRIGGER data_version_truncate AFTER TRUNCATE ON bom_changebox
+    FOR EACH STATEMENT EXECUTE FUNCTION data_version_bump();
+
+-- Maintenance: creates the partitions covering the current quarter through months_ahead months from
+-- now, and for every quarter with rows in the default partition, moving those rows into it. Each partition is
+-- built as a plain table and attached, which locks bom_changebox only against other DDL (a
+-- CREATE TABLE ... PARTITION OF would block every reader); the default partition is locked while
+-- its rows move. One run at a time across instances. Returns the number of partitions created.
+CREATE OR REPLACE FUNCTION create_bom_change_partitions(months_ahead integer) RETURNS integer
+LANGUAGE plpgsql AS $$
+DECLARE
+    quarter   date;
+    partition text;
+    created   integer := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('bom_change_partitions'));
+    FOR quarter IN
+        SELECT q::date
+        FROM generate_series(date_trunc('quarter', current_date),
+                             date_trunc('quarter', current_date + make_interval(months => months_ahead)),
+                             interval '3 months') q
+        UNION
+        SELECT DISTINCT date_trunc('quarter', effective_date)::date FROM bom_changebox_default
+        ORDER BY 1
+    LOOP
+        partition := 'bom_changebox_p' || to_char(quarter, 'YYYY_"q"Q');
+        CONTINUE WHEN to_regclass(partition) IS NOT NULL;
+        IF created = 0 THEN
+            LOCK TABLE bom_changebox IN SHARE UPDATE EXCLUSIVE MODE;
+            LOCK TABLE bom_changebox_default IN ACCESS EXCLUSIVE MODE;
+        END IF;
+        EXECUTE format('CREATE TABLE %I (LIKE bom_changebox INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition);
+        -- Proves the range up front, so the attach does not scan the table
+        EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (effective_date >= %L AND effective_date < %L)',
+                       partition, partition || '_range', quarter, quarter + interval '3 months');
+        EXECUTE format('WITH moved AS (DELETE FROM bom_changebox_default WHERE effective_date >= %L AND effective_date < %L '
+                       'RETURNING *) INSERT INTO %I SELECT * FROM moved',
+                       quarter, quarter + interval '3 months', partition);
+        EXECUTE format('ALTER TABLE bom_changebox ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                       partition, quarter, quarter + interval '3 months');
+        EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', partition, partition || '_range');
+        created := created + 1;
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+SELECT create_bom_change_partitions(3);
+-- Autovacuum analyzes the partitions but never the partitioned table itself
+ANALYZE bom_changebox;
+
+-- Detached quarters, queryable here but no longer part of bom_changebox
+CREATE SCHEMA IF NOT EXISTS bom_change_archive;
+
+-- Archive: detaches the partition of a past quarter (given any day in it) into bom_change_archive, removing its rows from
+-- bom_changebox as a delete would (rollup groups, bom_change_log ids, data version), then moves it
+-- to archive_tablespace if one is given. The tablespace must already exist. The detach holds an
+-- exclusive lock on bom_changebox only until the first COMMIT; the move, which copies the table,
+-- runs after it. A procedure so it can commit: CALL it outside a transaction block.
+CREATE OR REPLACE PROCEDURE archive_bom_change_partition(quarter date, archive_tablespace name DEFAULT NULL,
+                                                         INOUT archived_rows bigint DEFAULT NULL)
+LANGUAGE plpgsql AS $$
+DECLARE
+    partition text;
+    idx       regclass;
+BEGIN
+    quarter := date_trunc('quarter', quarter)::date;
+    partition := 'bom_changebox_p' || to_char(quarter, 'YYYY_"q"Q');
+    IF quarter >= date_trunc('quarter', current_date) THEN
+        RAISE EXCEPTION 'Only past quarters can be archived, not %', to_char(quarter, 'YYYY-"Q"Q');
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_inherits WHERE inhparent = 'bom_changebox'::regclass
+                                               AND inhrelid = to_regclass(partition)) THEN
+        RAISE EXCEPTION 'No BOM change partition for %', to_char(quarter, 'YYYY-"Q"Q');
+    END IF;
+    IF archive_tablespace IS NOT NULL AND NOT EXISTS (SELECT 1 FROM pg_tablespace WHERE spcname = archive_tablespace) THEN
+        RAISE EXCEPTION 'Tablespace % does not exist', archive_tablespace;
+    END IF;
+
+    PERFORM pg_advisory_xact_lock(hashtext('bom_change_partitions'));
+    EXECUTE format('ALTER TABLE bom_changebox DETACH PARTITION %I', partition);
+    -- The partition held the quarter's months whole, so their rollup groups go entirely
+    DELETE FROM bom_change_rollup WHERE month >= quarter AND month < quarter + interval '3 months';
+    EXECUTE format('INSERT INTO bom_change_log (bom_change_id) SELECT id FROM %I', partition);
+    GET DIAGNOSTICS archived_rows = ROW_COUNT;
+    IF archived_rows > 0 THEN
+        UPDATE data_versions SET version = version + 1 WHERE table_name = 'bom_changebox';
+    END IF;
+    EXECUTE format('ALTER TABLE %I SET SCHEMA bom_change_archive', partition);
+    COMMIT;
+
+    IF archive_tablespace IS NOT NULL THEN
+        EXECUTE format('ALTER TABLE bom_change_archive.%I SET TABLESPACE %I', partition, archive_tablespace);
+        FOR idx IN SELECT indexrelid::regclass FROM pg_index
+                     WHERE indrelid = format('bom_change_archive.%I', partition)::regclass LOOP
+            EXECUTE format('ALTER INDEX %s SET TABLESPACE %I', idx, archive_tablespace);
+        END LOOP;
+    END IF;
+END
+$$;
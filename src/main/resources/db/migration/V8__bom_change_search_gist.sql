@@ -0,0 +1,12 @@
+-- BOM change search (BomChangeRepository.searchBomChanges) takes each column's closest matches with
+-- ORDER BY column <-> term LIMIT n. Only a GiST trigram index can return rows in distance order,
+-- and it serves the substring ILIKE as well, so it replaces the GIN index from V3/V7 on each column.
+DROP INDEX IF EXISTS idx_bom_change_part_name_trgm;
+DROP INDEX IF EXISTS idx_bom_change_part_number_trgm;
+DROP INDEX IF EXISTS idx_bom_change_supplier_trgm;
+DROP INDEX IF EXISTS idx_bom_change_model_trgm;
+
+CREATE INDEX idx_bom_change_part_name_trgm ON bom_changebox USING gist (part_name gist_trgm_ops);
+CREATE INDEX idx_bom_change_part_number_trgm ON bom_changebox USING gist (part_number gist_trgm_ops);
+CREATE INDEX idx_bom_change_supplier_trgm ON bom_changebox USING gist (supplier gist_trgm_ops);
+CREATE INDEX idx_bom_change_model_trgm ON bom_changebox USING gist (model gist_trgm_ops);
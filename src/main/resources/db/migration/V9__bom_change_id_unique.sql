@@ -0,0 +1,57 @@
+-- BomChange maps id alone as its key, but the primary key of the partitioned bom_changebox has to
+-- include effective_date (V7), and Postgres cannot enforce uniqueness across partitions.
+-- Invariant: an id names at most one row in bom_changebox. Ids come only from bom_changebox_seq,
+-- imports never keep an id from the file, and an update that changes effective_date moves the row
+-- (delete and insert under the same id), so no two partitions hold the same id. Within a partition
+-- the unique index below enforces it; findById and deleteById still probe every partition.
+
+DO $$
+DECLARE
+    partition regclass;
+BEGIN
+    FOR partition IN SELECT inhrelid::regclass FROM pg_inherits WHERE inhparent = 'bom_changebox'::regclass LOOP
+        EXECUTE format('CREATE UNIQUE INDEX IF NOT EXISTS %I ON %s (id)', partition::text || '_id_key', partition);
+    END LOOP;
+END
+$$;
+
+-- create_bom_change_partitions from V7, except that each new partition gets the same index before it is attached
+CREATE OR REPLACE FUNCTION create_bom_change_partitions(months_ahead integer) RETURNS integer
+LANGUAGE plpgsql AS $$
+DECLARE
+    quarter   date;
+    partition text;
+    created   integer := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('bom_change_partitions'));
+    FOR quarter IN
+        SELECT q::date
+        FROM generate_series(date_trunc('quarter', current_date),
+                             date_trunc('quarter', current_date + make_interval(months => months_ahead)),
+                             interval '3 months') q
+        UNION
+        SELECT DISTINCT date_trunc('quarter', effective_date)::date FROM bom_changebox_default
+        ORDER BY 1
+    LOOP
+        partition := 'bom_changebox_p' || to_char(quarter, 'YYYY_"q"Q');
+        CONTINUE WHEN to_regclass(partition) IS NOT NULL;
+        IF created = 0 THEN
+            LOCK TABLE bom_changebox IN SHARE UPDATE EXCLUSIVE MODE;
+            LOCK TABLE bom_changebox_default IN ACCESS EXCLUSIVE MODE;
+        END IF;
+        EXECUTE format('CREATE TABLE %I (LIKE bom_changebox INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', partition);
+        EXECUTE format('CREATE UNIQUE INDEX %I ON %I (id)', partition || '_id_key', partition);
+        -- Proves the range up front, so the attach does not scan the table
+        EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (effective_date >= %L AND effective_date < %L)',
+                       partition, partition || '_range', quarter, quarter + interval '3 months');
+        EXECUTE format('WITH moved AS (DELETE FROM bom_changebox_default WHERE effective_date >= %L AND effective_date < %L '
+                       'RETURNING *) INSERT INTO %I SELECT * FROM moved',
+                       quarter, quarter + interval '3 months', partition);
+        EXECUTE format('ALTER TABLE bom_changebox ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                       partition, quarter, quarter + interval '3 months');
+        EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', partition, partition || '_range');
+        created := created + 1;
+    END LOOP;
+    RETURN created;
+END
+$$;
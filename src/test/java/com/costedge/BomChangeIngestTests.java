@@ -0,0 +1,92 @@
+package com.costedge;
+
+import com.costedge.model.BomChange;
+import com.costedge.model.BomChangeStatus;
+import com.costedge.model.BomChangeType;
+import com.costedge.model.DTO.ImportSummary;
+import com.costedge.repository.BomChangeRepository;
+import com.costedge.services.BomChangeServiceimpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * NDJSON ingest against a real Postgres (DATABASE_URL etc. must be set): ids in the body never
+ * decide which row is written.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class BomChangeIngestTests {
+
+    @Autowired
+    private BomChangeServiceimpl bomChangeService;
+
+    @Autowired
+    private BomChangeRepository bomChangeRepository;
+
+    private final String partNumber = "INGEST-" + UUID.randomUUID().toString().substring(0, 8);
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @Test
+    void appendRejectsRecordCarryingAnId() throws IOException {
+        BomChange existing = bomChangeService.saveBomChange(change(partNumber, "100"));
+        createdIds.add(existing.getId());
+
+        ImportSummary summary = new ImportSummary();
+        bomChangeService.ingestNdjson(ndjson(existing.getId(), partNumber + "-X", "999"), false, summary);
+
+        assertEquals(1, summary.getRowsFailed());
+        assertEquals(0, summary.getRowsSaved());
+        assertTrue(summary.getErrors().get(0).getMessage().startsWith("id:"));
+        BomChange unchanged = bomChangeRepository.findById(existing.getId()).orElseThrow();
+        assertEquals(partNumber, unchanged.getPartNumber());
+        assertEquals(0, new BigDecimal("100").compareTo(unchanged.getNewCost()));
+    }
+
+    @Test
+    void mergeIgnoresTheIdAndMatchesOnTheKey() throws IOException {
+        BomChange other = bomChangeService.saveBomChange(change(partNumber + "-O", "100"));
+        createdIds.add(other.getId());
+
+        ImportSummary summary = new ImportSummary();
+        bomChangeService.ingestNdjson(ndjson(other.getId(), partNumber, "120"), true, summary);
+
+        assertEquals(1, summary.getRowsInserted());
+        BomChange untouched = bomChangeRepository.findById(other.getId()).orElseThrow();
+        assertEquals(partNumber + "-O", untouched.getPartNumber());
+        BomChange inserted = bomChangeRepository.findByPartNumber(partNumber).orElseThrow();
+        createdIds.add(inserted.getId());
+        assertNotEquals(other.getId(), inserted.getId());
+    }
+
+    @AfterEach
+    void deleteCreatedRows() {
+        bomChangeRepository.deleteAllByIdInBatch(createdIds);
+    }
+
+    private static BomChange change(String partNumber, String newCost) {
+        return new BomChange("INGEST", "Bracket", partNumber, new BigDecimal("90"), new BigDecimal(newCost), null,
+                "Acme", LocalDate.of(2026, 10, 1), BomChangeType.ADDITION, BomChangeStatus.PENDING,
+                "Eng", null, null, 1);
+    }
+
+    private static ByteArrayInputStream ndjson(long id, String partNumber, String newCost) {
+        String line = "{\"id\":" + id + ",\"model\":\"INGEST\",\"partName\":\"Bracket\",\"partNumber\":\"" + partNumber
+                + "\",\"oldCost\":90,\"newCost\":" + newCost + ",\"supplier\":\"Acme\",\"effectiveDate\":\"2026-10-01\","
+                + "\"changeType\":\"ADDITION\",\"status\":\"PENDING\",\"department\":\"Eng\",\"quantity\":1}\n";
+        return new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8));
+    }
+}
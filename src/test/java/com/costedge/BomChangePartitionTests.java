@@ -0,0 +1,111 @@
+package com.costedge;
+
+import com.costedge.model.BomChange;
+import com.costedge.model.BomChangeStatus;
+import com.costedge.model.BomChangeType;
+import com.costedge.repository.BomChangeRepository;
+import com.costedge.services.BomChangePartitionService;
+import com.costedge.services.BomChangeServiceimpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ids across the quarterly partitions of bom_changebox against a real Postgres (DATABASE_URL etc.
+ * must be set): the primary key includes effective_date, but an id still names one row.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class BomChangePartitionTests {
+
+    // A quarter no other data reaches, so its partition can be dropped afterwards
+    private static final LocalDate FAR_QUARTER = LocalDate.of(2031, 1, 1);
+
+    private static final String PARTITIONS_WITHOUT_ID_KEY = "SELECT c.relname FROM pg_inherits i " +
+            "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'bom_changebox'::regclass " +
+            "AND NOT EXISTS (SELECT 1 FROM pg_index x JOIN pg_attribute a ON a.attrelid = x.indrelid " +
+            "AND a.attnum = x.indkey[0] WHERE x.indrelid = c.oid AND x.indisunique AND x.indnkeyatts = 1 " +
+            "AND a.attname = 'id')";
+
+    @Autowired
+    private BomChangeServiceimpl bomChangeService;
+
+    @Autowired
+    private BomChangeRepository bomChangeRepository;
+
+    @Autowired
+    private BomChangePartitionService partitionService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final String partNumber = "PARTITION-" + UUID.randomUUID().toString().substring(0, 8);
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @Test
+    void idLookupStaysSingleRowWhenTheRowMovesPartition() {
+        BomChange saved = bomChangeService.saveBomChange(change(LocalDate.of(2025, 2, 10)));
+        createdIds.add(saved.getId());
+
+        saved.setEffectiveDate(LocalDate.of(2025, 8, 10));
+        bomChangeService.saveBomChange(saved);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        assertEquals(List.of("bom_changebox_p2025_q3"), jdbcTemplate.queryForList(
+                "SELECT tableoid::regclass::text FROM bom_changebox WHERE id = ?", String.class, saved.getId()));
+        assertEquals(LocalDate.of(2025, 8, 10),
+                bomChangeRepository.findById(saved.getId()).orElseThrow().getEffectiveDate());
+    }
+
+    @Test
+    void partitionRejectsASecondRowWithTheSameId() {
+        BomChange saved = bomChangeService.saveBomChange(change(LocalDate.of(2025, 2, 10)));
+        createdIds.add(saved.getId());
+
+        // Same quarter, another day: the (id, effective_date) primary key alone would allow it
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        assertThrows(DuplicateKeyException.class, () -> jdbcTemplate.update(
+                "INSERT INTO bom_changebox (id, model, part_name, part_number, old_cost, new_cost, supplier, " +
+                        "effective_date, change_type, status, department, quantity) " +
+                        "VALUES (?, 'PARTITION', 'Bracket', ?, 90, 100, 'Acme', ?, 'ADDITION', 'PENDING', 'Eng', 1)",
+                saved.getId(), partNumber + "-DUP", LocalDate.of(2025, 2, 11)));
+    }
+
+    @Test
+    void everyPartitionHasAUniqueIdIndex() {
+        // Lands in the default partition, so maintenance creates a partition for its quarter
+        BomChange far = bomChangeService.saveBomChange(change(FAR_QUARTER.plusDays(5)));
+        createdIds.add(far.getId());
+        partitionService.createPartitions();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        assertEquals(List.of("bom_changebox_p2031_q1"), jdbcTemplate.queryForList(
+                "SELECT tableoid::regclass::text FROM bom_changebox WHERE id = ?", String.class, far.getId()));
+        List<String> missing = jdbcTemplate.queryForList(PARTITIONS_WITHOUT_ID_KEY, String.class);
+        assertTrue(missing.isEmpty(), "partitions without a unique index on id: " + missing);
+    }
+
+    @AfterEach
+    void deleteCreatedRows() {
+        bomChangeRepository.deleteAllByIdInBatch(createdIds);
+        new JdbcTemplate(dataSource).execute("DROP TABLE IF EXISTS bom_changebox_p2031_q1");
+    }
+
+    private BomChange change(LocalDate effectiveDate) {
+        return new BomChange("PARTITION", "Bracket", partNumber, new BigDecimal("90"), new BigDecimal("100"), null,
+                "Acme", effectiveDate, BomChangeType.ADDITION, BomChangeStatus.PENDING, "Eng", null, null, 1);
+    }
+}
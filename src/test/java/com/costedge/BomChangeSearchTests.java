@@ -0,0 +1,81 @@
+package com.costedge;
+
+import com.costedge.model.BomChange;
+import com.costedge.model.BomChangeStatus;
+import com.costedge.model.BomChangeType;
+import com.costedge.repository.BomChangeRepository;
+import com.costedge.services.BomChangeServiceimpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * BOM change search against a real Postgres (DATABASE_URL etc. must be set): however many rows
+ * contain the term, the exact and closest matches come back first.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class BomChangeSearchTests {
+
+    @Autowired
+    private BomChangeServiceimpl bomChangeService;
+
+    @Autowired
+    private BomChangeRepository bomChangeRepository;
+
+    private final String term = "SEARCH" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+    // Part numbers repeat between runs, so each run files its rows under its own model
+    private final String model = "SEARCH-" + UUID.randomUUID().toString().substring(0, 8);
+    private final List<Long> createdIds = new ArrayList<>();
+
+    @Test
+    void exactAndClosestMatchesRankFirstAmongManyMatches() {
+        List<BomChange> broad = new ArrayList<>();
+        for (int i = 0; i < 1_100; i++) {
+            broad.add(change(term + " mounting bracket " + i, "PN-" + i));
+        }
+        bomChangeService.saveAllBomChanges(broad).forEach(saved -> createdIds.add(saved.getId()));
+        // Stored after every broad match, so a scan that stops early would never reach them
+        BomChange closest = bomChangeService.saveBomChange(change(term + "A", "PN-CLOSE"));
+        createdIds.add(closest.getId());
+        BomChange exact = bomChangeService.saveBomChange(change(term.toLowerCase(), "PN-EXACT"));
+        createdIds.add(exact.getId());
+
+        List<BomChange> found = bomChangeRepository.searchBomChanges(term, 20);
+
+        assertEquals(20, found.size());
+        assertEquals(exact.getId(), found.get(0).getId());
+        assertEquals(closest.getId(), found.get(1).getId());
+    }
+
+    @Test
+    void wildcardsInTheTermMatchLiterally() {
+        BomChange literal = bomChangeService.saveBomChange(change(term + "%_", "PN-LITERAL"));
+        createdIds.add(literal.getId());
+        BomChange other = bomChangeService.saveBomChange(change(term + "XY", "PN-OTHER"));
+        createdIds.add(other.getId());
+
+        List<BomChange> found = bomChangeRepository.searchBomChanges(term + "%_", 20);
+
+        assertEquals(List.of(literal.getId()), found.stream().map(BomChange::getId).toList());
+    }
+
+    @AfterEach
+    void deleteCreatedRows() {
+        bomChangeRepository.deleteAllByIdInBatch(createdIds);
+    }
+
+    private BomChange change(String partName, String partNumber) {
+        return new BomChange(model, partName, partNumber, new BigDecimal("90"), new BigDecimal("100"), null,
+                "Search Supplier", LocalDate.of(2026, 10, 1), BomChangeType.ADDITION, BomChangeStatus.PENDING,
+                "Eng", null, null, 1);
+    }
+}
@@ -0,0 +1,93 @@
+package com.costedge;
+
+import com.costedge.model.BomChange;
+import com.costedge.model.BomChangeStatus;
+import com.costedge.model.BomChangeType;
+import com.costedge.repository.BomChangeRepository;
+import com.costedge.services.BomChangeServiceimpl;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bulk inserts through saveAllBomChanges against a real Postgres (DATABASE_URL etc. must be set):
+ * every row is stored with its own id, and rows go out in JDBC batches rather than one statement each.
+ * For a throughput run, raise the row count and compare the test times:
+ * ./mvnw test -Dtest=BulkInsertThroughputTests -Dcostedge.bench.rows=100000
+ */
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "spring.jpa.properties.hibernate.generate_statistics=true"})
+class BulkInsertThroughputTests {
+
+    private static final int ROWS = Integer.getInteger("costedge.bench.rows", 5_000);
+
+    @Autowired
+    private BomChangeServiceimpl bomChangeService;
+
+    @Autowired
+    private BomChangeRepository bomChangeRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private List<Long> savedIds = List.of();
+
+    @Test
+    void saveAllBomChangesInsertsEveryRowInBatches() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        List<BomChange> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new BomChange("BENCH", "Part " + i, "BENCH-" + run + "-" + i,
+                    BigDecimal.valueOf(100), BigDecimal.valueOf(90 + i % 20), null, "Bench Supplier",
+                    LocalDate.now(), BomChangeType.REDUCTION, BomChangeStatus.PENDING,
+                    "Bench", null, null, 1));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<BomChange> saved = bomChangeService.saveAllBomChanges(rows);
+        savedIds = saved.stream().map(BomChange::getId).toList();
+
+        assertEquals(ROWS, saved.size());
+        assertEquals(ROWS, new HashSet<>(savedIds).size(), "ids must be unique");
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+        // Unbatched, every row is its own statement; batched, statements are per batch plus one per 50 ids
+        assertTrue(statistics.getPrepareStatementCount() < ROWS / 10,
+                statistics.getPrepareStatementCount() + " statements for " + ROWS + " rows");
+
+        int found = 0;
+        for (List<Long> chunk : chunks(savedIds)) {
+            found += bomChangeRepository.findAllById(chunk).size();
+        }
+        assertEquals(ROWS, found);
+        BomChange first = bomChangeRepository.findById(savedIds.get(0)).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(-10).compareTo(first.getImpact()));
+    }
+
+    @AfterEach
+    void deleteSavedRows() {
+        chunks(savedIds).forEach(bomChangeRepository::deleteAllByIdInBatch);
+    }
+
+    // Postgres takes at most 65,535 bind parameters per statement
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += 10_000) {
+            chunks.add(ids.subList(i, Math.min(i + 10_000, ids.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,59 @@
+package com.costedge.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReplicaFallbackDataSourceTests {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void replicaThatHasReplayedThePrimaryHasNoLag() {
+        ReplicaFallbackDataSource.ReplayLag lag = new ReplicaFallbackDataSource.ReplayLag();
+
+        lag.primaryAt(100, 0);
+        assertEquals(0, lag.replayedTo(100, 10));
+        lag.primaryAt(250, 2 * SECOND);
+        assertEquals(0, lag.replayedTo(300, 2 * SECOND + 10));
+    }
+
+    @Test
+    void disconnectedReplicaFallsBehindOnceThePrimaryWrites() {
+        ReplicaFallbackDataSource.ReplayLag lag = new ReplicaFallbackDataSource.ReplayLag();
+
+        lag.primaryAt(100, 0);
+        assertEquals(0, lag.replayedTo(100, 0));
+        // Stuck at 100: everything it received is replayed, but the primary has moved on
+        lag.primaryAt(200, 2 * SECOND);
+        assertEquals(0, lag.replayedTo(100, 2 * SECOND));
+        lag.primaryAt(300, 4 * SECOND);
+        assertEquals(2 * SECOND, lag.replayedTo(100, 4 * SECOND));
+        lag.primaryAt(400, 6 * SECOND);
+        assertEquals(4 * SECOND, lag.replayedTo(100, 6 * SECOND));
+        // Reconnected and part way through the backlog
+        assertEquals(2 * SECOND, lag.replayedTo(250, 6 * SECOND));
+    }
+
+    @Test
+    void idlePrimaryDoesNotMakeTheReplicaLag() {
+        ReplicaFallbackDataSource.ReplayLag lag = new ReplicaFallbackDataSource.ReplayLag();
+
+        for (int i = 0; i < 10; i++) {
+            lag.primaryAt(100, i * 2 * SECOND);
+            assertEquals(0, lag.replayedTo(100, i * 2 * SECOND));
+        }
+    }
+
+    @Test
+    void droppedSamplesNeverUnderstateTheLag() {
+        ReplicaFallbackDataSource.ReplayLag lag = new ReplicaFallbackDataSource.ReplayLag();
+
+        for (int i = 1; i <= ReplicaFallbackDataSource.ReplayLag.MAX_SAMPLES * 2; i++) {
+            lag.primaryAt(i, i * SECOND);
+        }
+        long now = (ReplicaFallbackDataSource.ReplayLag.MAX_SAMPLES * 2 + 1) * SECOND;
+        assertEquals(now - SECOND, lag.replayedTo(0, now));
+        assertEquals(now - (ReplicaFallbackDataSource.ReplayLag.MAX_SAMPLES + 2) * SECOND, lag.replayedTo(1, now));
+    }
+}
@@ -0,0 +1,219 @@
+package com.costedge.services.analytics;
+
+import com.costedge.services.analytics.BomChangeColumns.Dimension;
+import com.costedge.services.analytics.BomChangeColumns.Groups;
+import com.costedge.services.analytics.BomChangeColumns.Row;
+import com.costedge.services.analytics.BomChangeColumns.Slice;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BomChangeColumnsTests {
+
+    private static final String[] MODELS = {"M1", "M2", "M3"};
+    private static final String[] SUPPLIERS = {"Acme", "Bolt Co", "Cast Ltd", "Dyn Inc"};
+    private static final String[] STATUSES = {"PENDING", "APPROVED", "REJECTED"};
+
+    @Test
+    void builderGroupsCountsAndImpacts() {
+        BomChangeColumns columns = build(List.of(
+                row(1, "M1", "Acme", "PENDING", LocalDate.of(2025, 1, 10), 1_050),
+                row(2, "M1", "Bolt Co", "APPROVED", LocalDate.of(2025, 1, 20), -300),
+                row(3, "M2", "Acme", "PENDING", LocalDate.of(2025, 3, 5), BomChangeColumns.NO_IMPACT)));
+
+        assertEquals(3, columns.size());
+        Map<String, List<Long>> byModel = byValue(columns, Dimension.MODEL, Slice.ALL);
+        assertEquals(List.of(2L, 2L, 750L), byModel.get("M1"));
+        // A row without an impact counts as a change but not towards the impact figures
+        assertEquals(List.of(1L, 0L, 0L), byModel.get("M2"));
+
+        Map<String, List<Long>> byMonth = byMonth(columns, Slice.ALL);
+        assertEquals(Map.of("2025-01", List.of(2L, 2L, 750L), "2025-03", List.of(1L, 0L, 0L)), byMonth);
+    }
+
+    @Test
+    void patchAppliesInsertUpdateAndDeleteLikeARebuild() {
+        List<Row> rows = List.of(
+                row(10, "M1", "Acme", "PENDING", LocalDate.of(2025, 1, 10), 1_000),
+                row(20, "M1", "Acme", "PENDING", LocalDate.of(2025, 1, 15), 2_000),
+                row(30, "M2", "Bolt Co", "APPROVED", LocalDate.of(2025, 2, 1), 500),
+                row(40, "M2", "Bolt Co", "REJECTED", LocalDate.of(2025, 2, 2), BomChangeColumns.NO_IMPACT));
+        BomChangeColumns base = build(rows);
+
+        // Sorted by id, as CHANGED_ROWS returns them
+        List<Row> changes = List.of(
+                // Moves from M1/Acme/January to M3/a new supplier/April, and gains a different impact
+                row(20, "M3", "New Supplier", "APPROVED", LocalDate.of(2025, 4, 1), -700),
+                row(25, "M2", "Acme", "PENDING", LocalDate.of(2025, 2, 20), 123),
+                Row.deleted(30),
+                // Deleting an id the copy never had is a no-op
+                Row.deleted(35),
+                row(50, "M1", "Bolt Co", "PENDING", LocalDate.of(2024, 12, 31), 99));
+        BomChangeColumns patched = base.patch(changes);
+
+        BomChangeColumns rebuilt = build(List.of(
+                rows.get(0),
+                changes.get(0),
+                changes.get(1),
+                rows.get(3),
+                changes.get(4)));
+        assertSameTotals(rebuilt, patched);
+        assertEquals(List.of(2L, 2L, 1_099L), byValue(patched, Dimension.MODEL, Slice.ALL).get("M1"));
+        assertEquals(List.of(1L, 1L, -700L), byValue(patched, Dimension.MODEL, Slice.ALL).get("M3"));
+        assertEquals(List.of(2L, 1L, 99L), byValue(patched, Dimension.SUPPLIER, Slice.ALL).get("Bolt Co"));
+        // Row 20 left January for April
+        assertEquals(List.of(1L, 1L, 1_000L), byMonth(patched, Slice.ALL).get("2025-01"));
+        assertEquals(List.of(1L, 1L, -700L), byMonth(patched, Slice.ALL).get("2025-04"));
+        // The base copy is unchanged for readers still holding it
+        assertSameTotals(build(rows), base);
+    }
+
+    @Test
+    void repeatedRandomPatchesMatchARebuild() {
+        Random random = new Random(42);
+        TreeMap<Long, Row> current = new TreeMap<>();
+        for (long id = 1; id <= 500; id++) {
+            current.put(id, randomRow(random, id));
+        }
+        BomChangeColumns columns = build(new ArrayList<>(current.values()));
+
+        for (int round = 0; round < 50; round++) {
+            TreeMap<Long, Row> changes = new TreeMap<>();
+            for (int i = 0; i < 20; i++) {
+                long id = 1 + random.nextInt(600);
+                Row change = random.nextInt(4) == 0 ? Row.deleted(id) : randomRow(random, id);
+                changes.put(id, change);
+                if (change.isDeleted()) {
+                    current.remove(id);
+                } else {
+                    current.put(id, change);
+                }
+            }
+            columns = columns.patch(new ArrayList<>(changes.values()));
+            assertSameTotals(build(new ArrayList<>(current.values())), columns);
+        }
+    }
+
+    @Test
+    void slicesAgreeBetweenAPatchedCopyAndARebuild() {
+        List<Row> rows = new ArrayList<>();
+        Random random = new Random(7);
+        for (long id = 1; id <= 200; id++) {
+            rows.add(randomRow(random, id));
+        }
+        BomChangeColumns patched = build(rows).patch(List.of(
+                row(5, "M3", "Dyn Inc", "APPROVED", LocalDate.of(2025, 6, 1), 10_000), Row.deleted(6)));
+        List<Row> expected = new ArrayList<>(rows);
+        expected.set(4, row(5, "M3", "Dyn Inc", "APPROVED", LocalDate.of(2025, 6, 1), 10_000));
+        expected.remove(5);
+        BomChangeColumns rebuilt = build(expected);
+
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 6, 30);
+        assertEquals(total(rebuilt, slice(rebuilt, "M3", from, to, -5_000, 10_000)),
+                total(patched, slice(patched, "M3", from, to, -5_000, 10_000)));
+        assertEquals(byMonth(rebuilt, slice(rebuilt, null, from, to, -5_000, 10_000)),
+                byMonth(patched, slice(patched, null, from, to, -5_000, 10_000)));
+    }
+
+    @Test
+    void impactBoundsRoundInwardsAndClampToTheCentsRange() {
+        assertEquals(124, BomChangeAnalytics.cents(new BigDecimal("1.231"), RoundingMode.CEILING));
+        assertEquals(123, BomChangeAnalytics.cents(new BigDecimal("1.239"), RoundingMode.FLOOR));
+        assertEquals(-123, BomChangeAnalytics.cents(new BigDecimal("-1.231"), RoundingMode.CEILING));
+        assertEquals(Long.MAX_VALUE, BomChangeAnalytics.cents(new BigDecimal("1e30"), RoundingMode.FLOOR));
+        // Not Long.MIN_VALUE, which is NO_IMPACT
+        assertEquals(Long.MIN_VALUE + 1, BomChangeAnalytics.cents(new BigDecimal("-1e30"), RoundingMode.CEILING));
+
+        BomChangeColumns columns = build(List.of(
+                row(1, "M1", "Acme", "PENDING", LocalDate.of(2025, 1, 1), -999_999_999_99L),
+                row(2, "M1", "Acme", "PENDING", LocalDate.of(2025, 1, 2), 999_999_999_99L),
+                row(3, "M1", "Acme", "PENDING", LocalDate.of(2025, 1, 3), BomChangeColumns.NO_IMPACT)));
+        Slice unbounded = slice(columns, null, null, null,
+                BomChangeAnalytics.cents(new BigDecimal("-1e30"), RoundingMode.CEILING),
+                BomChangeAnalytics.cents(new BigDecimal("1e30"), RoundingMode.FLOOR));
+        // Every row with an impact, however large; the row without one is outside any impact bound
+        assertEquals(List.of(2L, 2L, 0L), total(columns, unbounded));
+    }
+
+    private static void assertSameTotals(BomChangeColumns expected, BomChangeColumns actual) {
+        assertEquals(expected.size(), actual.size());
+        for (Dimension dimension : Dimension.values()) {
+            assertEquals(byValue(expected, dimension, Slice.ALL), byValue(actual, dimension, Slice.ALL),
+                    dimension.name());
+        }
+        assertEquals(byMonth(expected, Slice.ALL), byMonth(actual, Slice.ALL));
+        assertEquals(total(expected, Slice.ALL), total(actual, Slice.ALL));
+    }
+
+    // Non-empty groups by value rather than code: a patched copy keeps codes a rebuild would not assign
+    private static Map<String, List<Long>> byValue(BomChangeColumns columns, Dimension dimension, Slice slice) {
+        Groups groups = columns.groupBy(dimension, slice);
+        Dictionary dictionary = columns.dictionary(dimension);
+        Map<String, List<Long>> byValue = new TreeMap<>();
+        for (int code = 0; code < dictionary.size(); code++) {
+            if (groups.count()[code] > 0) {
+                byValue.put(dictionary.value(code), group(groups, code));
+            }
+        }
+        return byValue;
+    }
+
+    private static Map<String, List<Long>> byMonth(BomChangeColumns columns, Slice slice) {
+        Groups groups = columns.groupByMonth(slice);
+        Map<String, List<Long>> byMonth = new TreeMap<>();
+        for (int g = 0; g < groups.count().length; g++) {
+            if (groups.count()[g] > 0) {
+                int month = columns.minMonth() + g;
+                byMonth.put(String.format("%d-%02d", 1970 + month / 12, month % 12 + 1), group(groups, g));
+            }
+        }
+        return byMonth;
+    }
+
+    private static List<Long> total(BomChangeColumns columns, Slice slice) {
+        return group(columns.total(slice), 0);
+    }
+
+    // Count, count with an impact, impact cents
+    private static List<Long> group(Groups groups, int g) {
+        return List.of(groups.count()[g], groups.impactCount()[g], groups.impactCents()[g]);
+    }
+
+    private static Slice slice(BomChangeColumns columns, String model, LocalDate from, LocalDate to,
+                               long minCents, long maxCents) {
+        int[] codes = new int[Dimension.values().length];
+        Arrays.fill(codes, Slice.ANY);
+        if (model != null) {
+            codes[Dimension.MODEL.ordinal()] = columns.dictionary(Dimension.MODEL).code(model);
+        }
+        return new Slice(codes, from == null ? Integer.MIN_VALUE : (int) from.toEpochDay(),
+                to == null ? Integer.MAX_VALUE : (int) to.toEpochDay(), true, minCents, maxCents);
+    }
+
+    private static BomChangeColumns build(List<Row> rows) {
+        BomChangeColumns.Builder builder = new BomChangeColumns.Builder(null, 0);
+        rows.forEach(builder::add);
+        return builder.build();
+    }
+
+    private static Row randomRow(Random random, long id) {
+        long cents = random.nextInt(10) == 0 ? BomChangeColumns.NO_IMPACT : random.nextInt(200_000) - 100_000;
+        return row(id, MODELS[random.nextInt(MODELS.length)], SUPPLIERS[random.nextInt(SUPPLIERS.length)],
+                STATUSES[random.nextInt(STATUSES.length)], LocalDate.of(2024, 1, 1).plusDays(random.nextInt(730)), cents);
+    }
+
+    private static Row row(long id, String model, String supplier, String status, LocalDate effectiveDate, long cents) {
+        return new Row(id, new String[]{model, supplier, "Eng", status, "REDUCTION"}, effectiveDate, cents);
+    }
+}
@@ -0,0 +1,47 @@
+package com.costedge.services.imports;
+
+import com.costedge.model.BomChange;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BomChangeRowMapperTests {
+
+    private final BomChangeRowMapper mapper =
+            new BomChangeRowMapper(Validation.buildDefaultValidatorFactory().getValidator());
+
+    @Test
+    void mapDefaultsMissingDateToToday() {
+        assertEquals(LocalDate.now(), mapper.map(row("")).getEffectiveDate());
+        assertEquals(LocalDate.now(), mapper.map(row("31/12/2024")).getEffectiveDate());
+    }
+
+    @Test
+    void mapForMergeKeepsValidDate() {
+        BomChange bomChange = mapper.mapForMerge(row("2024-12-31"));
+        assertEquals(LocalDate.of(2024, 12, 31), bomChange.getEffectiveDate());
+    }
+
+    @Test
+    void mapForMergeRejectsMissingOrBadDate() {
+        IllegalArgumentException blank = assertThrows(IllegalArgumentException.class, () -> mapper.mapForMerge(row("")));
+        assertTrue(blank.getMessage().startsWith("effectiveDate"), blank.getMessage());
+
+        IllegalArgumentException bad = assertThrows(IllegalArgumentException.class,
+                () -> mapper.mapForMerge(row("31/12/2024")));
+        assertTrue(bad.getMessage().contains("'31/12/2024'"), bad.getMessage());
+    }
+
+    static List<String> row(String effectiveDate) {
+        List<String> cells = new ArrayList<>(List.of("M1", "Bracket", "P-100", "10", "12", "Acme",
+                effectiveDate, "INCREASE", "PENDING", "Eng", ""));
+        return cells;
+    }
+}
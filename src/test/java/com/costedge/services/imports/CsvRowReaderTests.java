@@ -0,0 +1,67 @@
+package com.costedge.services.imports;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CsvRowReaderTests {
+
+    private final List<String> rows = new ArrayList<>();
+    private final List<String> errors = new ArrayList<>();
+
+    @Test
+    void skipsHeaderAndBlankRowsAndTrimsValues() throws IOException {
+        read("a,b\n 1 , 2 \n\n,\n3,4", 100);
+        assertEquals(List.of("2:[1, 2]", "5:[3, 4]"), rows);
+    }
+
+    @Test
+    void readsQuotedFieldsWithCommasDoubledQuotesAndLineBreaks() throws IOException {
+        read("a,b,c\n\"x, y\",\"say \"\"hi\"\"\",\"two\nlines\"\n5,6,7\n", 100);
+        assertEquals(List.of("2:[x, y, say \"hi\", two\nlines]", "3:[5, 6, 7]"), rows);
+    }
+
+    @Test
+    void quoteInsideUnquotedFieldIsLiteral() throws IOException {
+        read("a,b\n5\" bolt,2\n", 100);
+        assertEquals(List.of("2:[5\" bolt, 2]"), rows);
+    }
+
+    @Test
+    void acceptsCrlfAndLoneCrLineEndings() throws IOException {
+        read("a,b\r\n1,2\r\n3,4\r5,6\r\n", 100);
+        assertEquals(List.of("2:[1, 2]", "3:[3, 4]", "4:[5, 6]"), rows);
+    }
+
+    @Test
+    void dropsByteOrderMarkBeforeHeader() throws IOException {
+        read("\uFEFFa,b\n1,2\n", 100);
+        assertEquals(List.of("2:[1, 2]"), rows);
+    }
+
+    @Test
+    void unterminatedQuoteReportsRecordNumber() {
+        IOException e = assertThrows(IOException.class, () -> read("a,b\n1,2\n3,\"4\n5,6\n", 100));
+        assertEquals("Unterminated quoted field in row 3", e.getMessage());
+    }
+
+    @Test
+    void failsOverlongRecordAndContinuesWithTheNext() throws IOException {
+        String longField = "x".repeat(50);
+        read("a,b\n1,2\n" + longField + ",\"quoted\n" + longField + "\"\n3,4\n", 20);
+        assertEquals(List.of("2:[1, 2]", "4:[3, 4]"), rows);
+        assertEquals(List.of("3:Row is longer than 20 characters"), errors);
+    }
+
+    private void read(String csv, int maxRecordLength) throws IOException {
+        new CsvRowReader(new StringReader(csv), maxRecordLength).read(
+                (rowNumber, cells) -> rows.add(rowNumber + ":" + cells),
+                (rowNumber, message) -> errors.add(rowNumber + ":" + message));
+    }
+}
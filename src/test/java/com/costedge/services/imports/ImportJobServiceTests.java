@@ -0,0 +1,96 @@
+package com.costedge.services.imports;
+
+import com.costedge.model.DTO.ImportSummary;
+import com.costedge.model.ImportUpload;
+import com.costedge.repository.ImportUploadRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImportJobServiceTests {
+
+    private final List<ImportUpload> recorded = new ArrayList<>();
+    private ImportJobService service;
+
+    @Test
+    void recordedImportCompletesWithoutErrors() throws Exception {
+        service = service(false);
+
+        ImportJob job = finished(service.submit("bom-changes", upload(), "append", false, (file, summary) -> { }));
+
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+        assertTrue(job.getErrors().isEmpty());
+        assertEquals(List.of(job.getJobId()), recorded.stream().map(ImportUpload::getJobId).toList());
+        assertEquals("COMPLETED", recorded.get(0).getStatus());
+    }
+
+    @Test
+    void importThatCannotBeRecordedReportsThatDedupeIsOff() throws Exception {
+        service = service(true);
+
+        ImportJob job = finished(service.submit("bom-changes", upload(), "append", false, (file, summary) -> { }));
+
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(0, job.getRowsFailed());
+        assertEquals(1, job.getErrors().size());
+        ImportSummary.RowError error = job.getErrors().get(0);
+        assertEquals(0, error.getRow());
+        assertTrue(error.getMessage().contains("identical upload will be imported again"), error.getMessage());
+        assertTrue(error.getMessage().contains("database is down"), error.getMessage());
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    // Stands in for the JPA repository: save records the upload or fails, lookups find nothing
+    private ImportJobService service(boolean failToRecord) {
+        ImportUploadRepository repository = (ImportUploadRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{ImportUploadRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("save")) {
+                        if (failToRecord) {
+                            throw new DataAccessResourceFailureException("database is down");
+                        }
+                        recorded.add((ImportUpload) args[0]);
+                        return args[0];
+                    }
+                    if (method.getReturnType() == Optional.class) {
+                        return Optional.empty();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return new ImportJobService(new StreamingXlsxReader(), repository, new ObjectMapper(), 1, 1,
+                Duration.ofHours(1), Duration.ofHours(1));
+    }
+
+    private static ImportJob finished(ImportJob job) throws InterruptedException {
+        for (int i = 0; i < 500 && !job.isFinished(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished(), "job did not finish");
+        return job;
+    }
+
+    private static MockMultipartFile upload() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            workbook.createSheet().createRow(0).createCell(0).setCellValue("Value");
+            workbook.write(out);
+        }
+        return new MockMultipartFile("file", "changes.xlsx", null, out.toByteArray());
+    }
+}
@@ -0,0 +1,78 @@
+package com.costedge.services.imports;
+
+import com.costedge.model.DTO.ImportSummary;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ImportPipelineTests {
+
+    private static final int ROWS = 2_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void runInOrderHandsRowsToSinkInSheetOrder() throws Exception {
+        Path file = sheet(ROWS);
+        // several workers and small batches: ordering must come from runInOrder, not from luck
+        ImportPipeline pipeline = new ImportPipeline(new StreamingXlsxReader(), 4, 16, 7);
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        ImportSummary summary = new ImportSummary();
+
+        pipeline.runInOrder(file, cells -> {
+            int value = Integer.parseInt(cells.get(0));
+            if (value % 100 == 0) {
+                throw new IllegalArgumentException("rejected " + value);
+            }
+            return value;
+        }, batch -> {
+            received.addAll(batch);
+            return batch.size();
+        }, summary);
+
+        List<Integer> expected = IntStream.rangeClosed(1, ROWS).filter(i -> i % 100 != 0).boxed().toList();
+        assertEquals(expected, received);
+        assertEquals(ROWS / 100, summary.getRowsFailed());
+        assertEquals(expected.size(), summary.getRowsSaved());
+    }
+
+    @Test
+    void runImportsEveryRow() throws Exception {
+        Path file = sheet(ROWS);
+        ImportPipeline pipeline = new ImportPipeline(new StreamingXlsxReader(), 4, 16, 7);
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+
+        pipeline.run(file, cells -> Integer.parseInt(cells.get(0)), batch -> {
+            received.addAll(batch);
+            return batch.size();
+        }, new ImportSummary());
+
+        assertEquals(IntStream.rangeClosed(1, ROWS).boxed().toList(), received.stream().sorted().toList());
+    }
+
+    // Header row, then one row per value 1..rows
+    private Path sheet(int rows) throws Exception {
+        Path file = tempDir.resolve("rows.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            XSSFSheet sheet = workbook.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("Value");
+            for (int i = 1; i <= rows; i++) {
+                sheet.createRow(i).createCell(0).setCellValue(String.valueOf(i));
+            }
+            workbook.write(out);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,85 @@
+package com.costedge.services.imports;
+
+import com.costedge.model.DTO.ImportSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.constraints.NotBlank;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecordStreamIngesterTests {
+
+    record Part(@NotBlank String number) {
+    }
+
+    private final RecordStreamIngester ingester = new RecordStreamIngester(new ObjectMapper(),
+            Validation.buildDefaultValidatorFactory().getValidator(), 2, 30);
+
+    private final List<Part> saved = new ArrayList<>();
+    private final ImportSummary summary = new ImportSummary();
+
+    @Test
+    void ndjsonReadsCrlfLinesAfterByteOrderMarkAndSkipsBlankLines() throws IOException {
+        ndjson("\uFEFF{\"number\":\"A\"}\r\n\r\n{\"number\":\"B\"}\n{\"number\":\"C\"}");
+        assertEquals(List.of(new Part("A"), new Part("B"), new Part("C")), saved);
+        assertEquals(3, summary.getRowsRead());
+        assertEquals(3, summary.getRowsSaved());
+    }
+
+    @Test
+    void ndjsonReportsInvalidRecordsByLineNumber() throws IOException {
+        ndjson("{\"number\":\"A\"}\n{\"number\":\n{\"number\":\"\"}\n");
+        assertEquals(List.of(new Part("A")), saved);
+        assertEquals(List.of(2, 3), errorRows());
+    }
+
+    @Test
+    void ndjsonFailsOverlongLineWithoutStoppingTheIngest() throws IOException {
+        ndjson("{\"number\":\"" + "x".repeat(10_000) + "\"}\n{\"number\":\"B\"}\r\n");
+        assertEquals(List.of(new Part("B")), saved);
+        assertEquals(List.of(1), errorRows());
+        assertEquals("Line is longer than 30 characters", summary.getErrors().get(0).getMessage());
+        assertEquals(2, summary.getRowsRead());
+    }
+
+    @Test
+    void ndjsonAcceptsLineOfExactlyTheLimitBeforeCrlf() throws IOException {
+        String line = "{\"number\":\"" + "x".repeat(17) + "\"}";
+        assertEquals(30, line.length());
+        ndjson(line + "\r\n" + line);
+        assertEquals(2, saved.size());
+    }
+
+    @Test
+    void csvCountsOverlongRecordsAsReadAndFailed() throws IOException {
+        ingester.ingestCsv(body("number\nA\n" + "x".repeat(100) + "\nB\n"), cells -> new Part(cells.get(0)),
+                this::save, summary);
+        assertEquals(List.of(new Part("A"), new Part("B")), saved);
+        assertEquals(3, summary.getRowsRead());
+        assertEquals(List.of(3), errorRows());
+    }
+
+    private void ndjson(String body) throws IOException {
+        ingester.ingestNdjson(body(body), Part.class, part -> { }, this::save, summary);
+    }
+
+    private long save(List<Part> batch) {
+        saved.addAll(batch);
+        return batch.size();
+    }
+
+    private List<Integer> errorRows() {
+        return summary.getErrors().stream().map(ImportSummary.RowError::getRow).toList();
+    }
+
+    private static ByteArrayInputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
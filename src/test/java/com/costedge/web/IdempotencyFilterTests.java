@@ -0,0 +1,133 @@
+package com.costedge.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockPart;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyFilterTests {
+
+    private final IdempotencyFilter filter =
+            new IdempotencyFilter(new IdempotencyStore(Duration.ofHours(1), 100), Duration.ofSeconds(1), 64);
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void repeatGetsTheStoredResponseWithoutRunningAgain() throws Exception {
+        MockHttpServletResponse first = send(post("/api/bom-changes/saveAll", "mode=copy", "[1]"));
+        MockHttpServletResponse repeat = send(post("/api/bom-changes/saveAll", "mode=copy", "[1]"));
+
+        assertEquals(1, executions.get());
+        assertEquals(201, repeat.getStatus());
+        assertEquals(first.getContentAsString(), repeat.getContentAsString());
+        assertEquals("true", repeat.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void keyReusedWithAnotherQueryStringIsRejected() throws Exception {
+        send(post("/api/bom-changes/saveAll", "mode=copy", "[1]"));
+        MockHttpServletResponse other = send(post("/api/bom-changes/saveAll", "mode=merge", "[1]"));
+
+        assertEquals(1, executions.get());
+        assertEquals(422, other.getStatus());
+    }
+
+    @Test
+    void keyReusedWithAnotherBodyIsRejectedEvenIfTheFirstLeftItUnread() throws Exception {
+        send(post("/api/bom-changes/saveAll", null, "[1]"), false);
+        MockHttpServletResponse other = send(post("/api/bom-changes/saveAll", null, "[2]"));
+
+        assertEquals(1, executions.get());
+        assertEquals(422, other.getStatus());
+    }
+
+    @Test
+    void multipartRequestsAreComparedByTheirParts() throws Exception {
+        send(multipart("a.xlsx", "one"));
+        assertEquals(200, send(multipart("a.xlsx", "one")).getStatus());
+        assertEquals(422, send(multipart("a.xlsx", "two")).getStatus());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void responseOverTheBodyLimitIsNotReplayed() throws Exception {
+        String large = "[" + "1,".repeat(40) + "1]";
+        MockHttpServletResponse first = send(post("/api/bom-changes/saveAllJson", null, large));
+        MockHttpServletResponse repeat = send(post("/api/bom-changes/saveAllJson", null, large));
+        MockHttpServletResponse other = send(post("/api/bom-changes/saveAllJson", null, "[2]"));
+
+        assertEquals(1, executions.get());
+        assertEquals(201, first.getStatus());
+        assertTrue(first.getContentAsString().endsWith(large), "the original response is sent in full");
+        assertEquals(409, repeat.getStatus());
+        assertTrue(repeat.getContentAsString().contains("already processed (status 201)"));
+        assertEquals(422, other.getStatus());
+    }
+
+    @Test
+    void serverErrorsAreNotStored() throws Exception {
+        MockHttpServletRequest request = post("/api/bom-changes/saveAll", null, "[1]");
+        MockHttpServletResponse failed = new MockHttpServletResponse();
+        filter.doFilter(request, failed, (req, res) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) res).setStatus(500);
+        });
+        send(post("/api/bom-changes/saveAll", null, "[1]"));
+
+        assertEquals(2, executions.get());
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws Exception {
+        return send(request, true);
+    }
+
+    // The stand-in controller echoes what it read of the body, or ignores it
+    private MockHttpServletResponse send(MockHttpServletRequest request, boolean readBody) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+            executions.incrementAndGet();
+            HttpServletResponse http = (HttpServletResponse) res;
+            http.setStatus(req.getContentType().startsWith("multipart/") ? 200 : 201);
+            http.getOutputStream().write(("run " + executions.get() + ": " + (readBody ? body((HttpServletRequest) req) : ""))
+                    .getBytes(StandardCharsets.UTF_8));
+        });
+        return response;
+    }
+
+    private static String body(HttpServletRequest request) throws IOException {
+        if (request.getContentType().startsWith("multipart/")) {
+            return "parts";
+        }
+        return new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private static MockHttpServletRequest post(String uri, String query, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setQueryString(query);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-1");
+        return request;
+    }
+
+    private static MockHttpServletRequest multipart(String fileName, String content) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/bom-changes/upload");
+        request.setContentType(MediaType.MULTIPART_FORM_DATA_VALUE);
+        MockPart part = new MockPart("file", fileName, content.getBytes(StandardCharsets.UTF_8));
+        request.addPart(part);
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "key-2");
+        return request;
+    }
+}
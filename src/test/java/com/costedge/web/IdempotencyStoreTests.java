@@ -0,0 +1,75 @@
+package com.costedge.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyStoreTests {
+
+    private static final IdempotencyStore.StoredResponse OK =
+            new IdempotencyStore.StoredResponse("fingerprint", 200, Map.of(), new byte[0]);
+
+    @Test
+    void firstClaimOwnsTheKeyAndRepeatsWaitOnItsResponse() {
+        IdempotencyStore store = new IdempotencyStore(Duration.ofHours(1), 10);
+        IdempotencyStore.Claim owner = store.claim("k").orElseThrow();
+        IdempotencyStore.Claim repeat = store.claim("k").orElseThrow();
+
+        assertTrue(owner.owner());
+        assertFalse(repeat.owner());
+        assertFalse(repeat.response().isDone());
+        store.complete(owner, OK);
+        assertSame(OK, repeat.response().join());
+    }
+
+    @Test
+    void releaseLetsTheNextRequestRunAndFailsWaitingOnes() {
+        IdempotencyStore store = new IdempotencyStore(Duration.ofHours(1), 10);
+        IdempotencyStore.Claim owner = store.claim("k").orElseThrow();
+        IdempotencyStore.Claim waiting = store.claim("k").orElseThrow();
+
+        store.release("k", owner);
+
+        assertTrue(waiting.response().isCompletedExceptionally());
+        assertTrue(store.claim("k").orElseThrow().owner());
+    }
+
+    @Test
+    void fullStoreDropsOldestFinishedEntriesButNeverInFlightOnes() {
+        IdempotencyStore store = new IdempotencyStore(Duration.ofHours(1), 2);
+        IdempotencyStore.Claim inFlight = store.claim("a").orElseThrow();
+        store.complete(store.claim("b").orElseThrow(), OK);
+
+        // "b" is finished and makes room; "a" is still running and stays
+        assertTrue(store.claim("c").orElseThrow().owner());
+        assertFalse(store.claim("a").orElseThrow().owner());
+        assertSame(inFlight.response(), store.claim("a").orElseThrow().response());
+    }
+
+    @Test
+    void fullStoreOfInFlightRequestsRefusesNewKeys() {
+        IdempotencyStore store = new IdempotencyStore(Duration.ofHours(1), 2);
+        IdempotencyStore.Claim a = store.claim("a").orElseThrow();
+        store.claim("b").orElseThrow();
+
+        assertTrue(store.claim("c").isEmpty());
+        assertFalse(store.claim("a").orElseThrow().owner());
+
+        store.complete(a, OK);
+        assertTrue(store.claim("c").orElseThrow().owner());
+    }
+
+    @Test
+    void expiredEntriesAreForgotten() throws InterruptedException {
+        IdempotencyStore store = new IdempotencyStore(Duration.ofMillis(1), 10);
+        store.complete(store.claim("k").orElseThrow(), OK);
+        Thread.sleep(5);
+
+        assertTrue(store.claim("k").orElseThrow().owner());
+    }
+}